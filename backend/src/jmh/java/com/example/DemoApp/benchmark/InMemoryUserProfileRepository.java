@@ -0,0 +1,168 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileView;
+import com.example.DemoApp.repository.UserProfileRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-in for {@link UserProfileRepository} so service benchmarks measure the service itself
+ * rather than H2 and Hibernate. Only the repository methods the service calls are implemented.
+ */
+final class InMemoryUserProfileRepository implements InvocationHandler {
+
+    private final NavigableMap<Long, UserProfile> byId = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private InMemoryUserProfileRepository() {
+    }
+
+    static UserProfileRepository create() {
+        return (UserProfileRepository) Proxy.newProxyInstance(
+                UserProfileRepository.class.getClassLoader(),
+                new Class<?>[]{UserProfileRepository.class},
+                new InMemoryUserProfileRepository());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "findByUsername" -> findByUsername((String) args[0]);
+            case "findViewByUsername" -> findByUsername((String) args[0]).map(UserProfileView::of);
+            case "findViewsByIdGreaterThan" -> findPage((Long) args[0], (Limit) args[1]);
+            case "save", "saveAndFlush" -> save((UserProfile) args[0]);
+            case "delete" -> {
+                delete((UserProfile) args[0]);
+                yield null;
+            }
+            case "updateByUsername" -> updateByUsername((String) args[0], (String) args[1], (String) args[2],
+                    (String) args[3], (String) args[4], (String) args[5], (String) args[6]);
+            case "updateByUsernameAndVersion" -> updateByUsernameAndVersion((String) args[0], (Long) args[1],
+                    (String) args[2], (String) args[3], (String) args[4], (String) args[5], (String) args[6],
+                    (String) args[7]);
+            case "deleteByUsername" -> deleteByUsername((String) args[0]);
+            case "streamAllUsernames" -> List.copyOf(idsByUsername.keySet()).stream();
+            case "existsByUsername" -> idsByUsername.containsKey((String) args[0]);
+            case "countByState" -> countBy(UserProfile::getState);
+            case "countByZip3" -> countBy(user -> UserProfileLocation.zip3(user.getZipCode()));
+            case "count" -> (long) byId.size();
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "InMemoryUserProfileRepository";
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    private Optional<UserProfile> findByUsername(String username) {
+        Long id = idsByUsername.get(username);
+        return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id));
+    }
+
+    private List<UserProfileView> findPage(Long afterId, Limit limit) {
+        List<UserProfileView> page = new ArrayList<>(limit.max());
+        for (UserProfile user : byId.tailMap(afterId, false).values()) {
+            if (page.size() == limit.max()) {
+                break;
+            }
+            page.add(UserProfileView.of(user));
+        }
+        return page;
+    }
+
+    private synchronized UserProfile save(UserProfile user) {
+        if (user.getId() == null) {
+            user.setId(sequence.incrementAndGet());
+        }
+        if (user.getVersion() == null) {
+            user.setVersion(0L);
+        }
+        Long owner = idsByUsername.get(user.getUsername());
+        if (owner != null && !owner.equals(user.getId())) {
+            throw new DataIntegrityViolationException("Duplicate username: " + user.getUsername());
+        }
+
+        // The service mutates the stored instance in place, so look up the old username by id
+        String previousUsername = usernamesById.put(user.getId(), user.getUsername());
+        if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+            idsByUsername.remove(previousUsername);
+        }
+        idsByUsername.put(user.getUsername(), user.getId());
+        byId.put(user.getId(), user);
+        return user;
+    }
+
+    private synchronized void delete(UserProfile user) {
+        String username = usernamesById.remove(user.getId());
+        if (username != null) {
+            idsByUsername.remove(username);
+        }
+        byId.remove(user.getId());
+    }
+
+    private synchronized Optional<UserProfileLocation> updateByUsername(String username, String newUsername,
+                                                                        String emailAddress, String streetAddress,
+                                                                        String city, String state, String zipCode) {
+        Long id = idsByUsername.get(username);
+        if (id == null) {
+            return Optional.empty();
+        }
+        UserProfile current = byId.get(id);
+        save(UserProfile.builder()
+                .id(id)
+                .username(newUsername != null ? newUsername : current.getUsername())
+                .emailAddress(emailAddress != null ? emailAddress : current.getEmailAddress())
+                .streetAddress(streetAddress != null ? streetAddress : current.getStreetAddress())
+                .city(city != null ? city : current.getCity())
+                .state(state != null ? state : current.getState())
+                .zipCode(zipCode != null ? zipCode : current.getZipCode())
+                .version(current.getVersion() + 1)
+                .build());
+        return Optional.of(new UserProfileLocation(current.getState(), current.getZipCode()));
+    }
+
+    private synchronized Optional<UserProfileLocation> updateByUsernameAndVersion(String username,
+                                                                                  long expectedVersion,
+                                                                                  String newUsername,
+                                                                                  String emailAddress,
+                                                                                  String streetAddress, String city,
+                                                                                  String state, String zipCode) {
+        Long id = idsByUsername.get(username);
+        if (id == null || byId.get(id).getVersion() != expectedVersion) {
+            return Optional.empty();
+        }
+        return updateByUsername(username, newUsername, emailAddress, streetAddress, city, state, zipCode);
+    }
+
+    private synchronized Optional<UserProfileLocation> deleteByUsername(String username) {
+        Long id = idsByUsername.get(username);
+        if (id == null) {
+            return Optional.empty();
+        }
+        UserProfile current = byId.get(id);
+        delete(current);
+        return Optional.of(new UserProfileLocation(current.getState(), current.getZipCode()));
+    }
+
+    private List<Object[]> countBy(Function<UserProfile, String> key) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (UserProfile user : byId.values()) {
+            counts.merge(key.apply(user), 1L, Long::sum);
+        }
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((group, count) -> rows.add(new Object[]{group, count}));
+        return rows;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.service.UserProfileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost and bytes on the wire for each response format, for one profile and for a default-sized
+ * list page, with and without gzip. The size shows up as the bytesOnWire secondary result next to the
+ * time per encode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserProfileFormatBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public UserProfileFormat format;
+
+    @Param({"1", "50"})
+    public int profiles;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectWriter writer;
+    private Object payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        // Assigned rather than summed, so the reported value is the size of a single response body
+        public long bytesOnWire;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = format.mapper(new ObjectMapper()).writer();
+        List<UserProfile> page = new ArrayList<>(profiles);
+        for (int i = 1; i <= profiles; i++) {
+            page.add(UserProfile.builder()
+                    .id((long) i)
+                    .username("user" + i)
+                    .emailAddress("user" + i + "@example.com")
+                    .streetAddress(i + " Main St")
+                    .city(i % 2 == 0 ? "Springfield" : "Chicago")
+                    .state("IL")
+                    .zipCode(String.valueOf(60_000 + i))
+                    .version(0L)
+                    .build());
+        }
+        payload = profiles == 1 ? page.get(0) : page;
+    }
+
+    @Benchmark
+    public byte[] encode(WireSize wireSize) throws IOException {
+        byte[] body = writer.writeValueAsBytes(payload);
+        if (gzip) {
+            body = gzip(body);
+        }
+        wireSize.bytesOnWire = body.length;
+        return body;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.DemoAppApplication;
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileView;
+import com.example.DemoApp.repository.UserProfileRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity reads against the record projections the GET paths use, on the real Hibernate and H2 stack,
+ * each inside a read-only transaction as the repository runs them. Run with the GC profiler to see the
+ * allocation per request: ./gradlew jmh -PjmhIncludes=UserProfileReadModelBenchmark -PjmhProfilers=gc,
+ * then compare gc.alloc.rate.norm between the entity and view variants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class UserProfileReadModelBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PAGE_SIZE = 50;
+
+    private ConfigurableApplicationContext context;
+    private UserProfileRepository repository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String nextUsername() {
+            next = next % USERS + 1;
+            return "reader" + next;
+        }
+
+        long nextPageStart() {
+            next = (next + PAGE_SIZE) % (USERS - PAGE_SIZE);
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        repository = context.getBean(UserProfileRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<UserProfile> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(UserProfile.builder()
+                    .username("reader" + i)
+                    .emailAddress("reader" + i + "@example.com")
+                    .streetAddress(i + " Main St")
+                    .city("Chicago")
+                    .state("IL")
+                    .zipCode(String.valueOf(60_000 + i % 1000))
+                    .build());
+        }
+        repository.saveAll(users);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<UserProfile> entityByUsername(Cursor cursor) {
+        String username = cursor.nextUsername();
+        return readOnly.execute(status -> repository.findByUsername(username));
+    }
+
+    @Benchmark
+    public Optional<UserProfileView> viewByUsername(Cursor cursor) {
+        String username = cursor.nextUsername();
+        return readOnly.execute(status -> repository.findViewByUsername(username));
+    }
+
+    // Same keyset page as the view query below, but materialized as managed entities
+    @Benchmark
+    public List<UserProfile> entityPage(Cursor cursor) {
+        long afterId = cursor.nextPageStart();
+        return readOnly.execute(status -> entityManager
+                .createQuery("from UserProfile u where u.id > :id order by u.id", UserProfile.class)
+                .setParameter("id", afterId)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<UserProfileView> viewPage(Cursor cursor) {
+        long afterId = cursor.nextPageStart();
+        return readOnly.execute(status -> repository.findViewsByIdGreaterThan(afterId, Limit.of(PAGE_SIZE)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatch;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.validation.UserProfileValidator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body to validated entity for the write endpoints, as the controller does it now (typed records)
+ * and as it did before (a Map per body, or a JsonNode tree converted to maps for PATCH). The *_mapBaseline
+ * methods keep the old path for comparison. Run with -PjmhProfilers=gc and compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserProfileRequestBindingBenchmark {
+
+    private static final String[] REQUIRED_FIELDS =
+            {"username", "emailAddress", "streetAddress", "city", "state", "zipCode"};
+    private static final TypeReference<Map<String, String>> MAP = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, String>>> MAP_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader createReader = objectMapper.readerFor(UserProfileCreateRequest.class);
+    private final ObjectReader patchReader = objectMapper.readerFor(UserProfilePatch.class);
+    private final ObjectReader mapReader = objectMapper.readerFor(MAP);
+
+    private final byte[] createBody = """
+            {"username":"validuser","emailAddress":"valid.user@example.com","streetAddress":"123 Main St",\
+            "city":"Chicago","state":"IL","zipCode":"60601"}""".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] patchBody = """
+            [{"op":"replace","path":"city","value":"Omaha"},{"op":"replace","path":"state","value":"NE"}]"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public UserProfile create() throws IOException {
+        UserProfileCreateRequest request = createReader.readValue(createBody);
+        UserProfileValidator.validateCreateRequest(request);
+        return request.toUserProfile();
+    }
+
+    @Benchmark
+    public UserProfile create_mapBaseline() throws IOException {
+        Map<String, String> payload = mapReader.readValue(createBody);
+        for (String field : REQUIRED_FIELDS) {
+            String value = payload.get(field);
+            if (value == null && !payload.containsKey(field)) {
+                throw new IllegalArgumentException("Missing required field: " + field);
+            }
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be blank.");
+            }
+        }
+        UserProfileValidator.validateEmail(payload.get("emailAddress"));
+        return UserProfile.builder()
+                .username(payload.get("username"))
+                .emailAddress(payload.get("emailAddress"))
+                .streetAddress(payload.get("streetAddress"))
+                .city(payload.get("city"))
+                .state(payload.get("state"))
+                .zipCode(payload.get("zipCode"))
+                .build();
+    }
+
+    @Benchmark
+    public List<UserProfilePatchOperation> patch() throws IOException {
+        UserProfilePatch patch = patchReader.readValue(patchBody);
+        patch.operations().forEach(UserProfileValidator::validatePatchRequest);
+        return patch.operations();
+    }
+
+    @Benchmark
+    public List<Map<String, String>> patch_mapBaseline() throws IOException {
+        JsonNode tree = objectMapper.readTree(patchBody);
+        List<Map<String, String>> operations = objectMapper.convertValue(tree, MAP_LIST);
+        for (Map<String, String> operation : operations) {
+            UserProfileValidator.validatePatchRequest(
+                    new UserProfilePatchOperation(operation.get("op"), operation.get("path"), operation.get("value")));
+        }
+        return operations;
+    }
+}
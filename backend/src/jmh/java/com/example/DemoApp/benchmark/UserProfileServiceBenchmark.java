@@ -0,0 +1,158 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileCache;
+import com.example.DemoApp.service.UserProfileCacheProperties;
+import com.example.DemoApp.service.UserProfileChangeCounter;
+import com.example.DemoApp.service.UserProfileCursor;
+import com.example.DemoApp.service.UserProfileFormat;
+import com.example.DemoApp.service.UserProfileLocationCounts;
+import com.example.DemoApp.service.UserProfilePageProperties;
+import com.example.DemoApp.service.UserProfileService;
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTypeaheadProperties;
+import com.example.DemoApp.service.UserProfileUsernameIndex;
+import com.example.DemoApp.service.UserProfileUsernameFilter;
+import com.example.DemoApp.service.UserProfileUsernameFilterProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-layer cost of each endpoint against an in-memory repository, with and without the profile cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserProfileServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private UserProfileService cachedService;
+    private UserProfileService uncachedService;
+    private String username;
+    private String midTableCursor;
+    private String profileETag;
+    private String firstPageETag;
+    private long counter;
+    // From broad to narrow: "user" matches every row, "user12345" only a handful
+    private final String[] prefixes = {"user", "user1", "user123", "user12345"};
+    private static final String[] STATES = {"IL", "IN", "IA", "MO", "WI"};
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserProfileRepository repository = InMemoryUserProfileRepository.create();
+        for (int i = 1; i <= rows; i++) {
+            repository.save(UserProfile.builder()
+                    .username("user" + i)
+                    .emailAddress("user" + i + "@example.com")
+                    .streetAddress(i + " Main St")
+                    .city("Springfield")
+                    .state(STATES[i % STATES.length])
+                    .zipCode(String.valueOf(50_000 + i % 20_000))
+                    .build());
+        }
+
+        cachedService = newService(repository, true);
+        // The cache is bypassed, so each lookup goes to the repository and Jackson
+        uncachedService = newService(repository, false);
+        username = "user" + (rows / 2);
+        midTableCursor = UserProfileCursor.encode(rows / 2);
+        profileETag = cachedService.getUserProfile(username).getHeaders().getETag();
+        firstPageETag = uncachedService.getAllUsers(null, 50).getHeaders().getETag();
+    }
+
+    private static UserProfileService newService(UserProfileRepository repository, boolean cacheEnabled) {
+        UserProfileCache cache = new UserProfileCache(new ObjectMapper(), new SimpleMeterRegistry(),
+                new UserProfileCacheProperties(cacheEnabled, 100_000, Duration.ofMinutes(10)));
+        UserProfileUsernameFilter usernameFilter = new UserProfileUsernameFilter(repository,
+                new UserProfileUsernameFilterProperties(true, 1_000_000, 0.01, DataSize.ofMegabytes(16)),
+                new SimpleMeterRegistry());
+        usernameFilter.loadExistingUsernames();
+        UserProfileUsernameIndex usernameIndex = new UserProfileUsernameIndex(repository,
+                new UserProfileTypeaheadProperties(10, 50), new SimpleMeterRegistry());
+        usernameIndex.loadExistingUsernames();
+        UserProfileLocationCounts locationCounts = new UserProfileLocationCounts(repository, new SimpleMeterRegistry());
+        locationCounts.loadCounts();
+        return new UserProfileService(repository, cache, new UserProfilePageProperties(50, 500),
+                usernameFilter, usernameIndex, locationCounts, new UserProfileChangeCounter(),
+                new UserProfileTimings(new SimpleMeterRegistry()), TransactionOperations.withoutTransaction());
+    }
+
+    @Benchmark
+    public Object getUserProfile_cached() {
+        return cachedService.getUserProfile(username);
+    }
+
+    @Benchmark
+    public Object getUserProfile_uncached() {
+        return uncachedService.getUserProfile(username);
+    }
+
+    // Conditional GETs from a client that already holds the current representation
+    @Benchmark
+    public Object getUserProfile_notModified() {
+        return cachedService.getUserProfile(username, profileETag, UserProfileFormat.JSON);
+    }
+
+    @Benchmark
+    public Object getAllUsers_notModified() {
+        return uncachedService.getAllUsers(null, 50, firstPageETag, UserProfileFormat.JSON);
+    }
+
+    // Answered by the username filter without touching the repository
+    @Benchmark
+    public Object getUserProfile_missing() {
+        return uncachedService.getUserProfile("missing" + (counter++ & 1023));
+    }
+
+    @Benchmark
+    public Object findUsernamesByPrefix() {
+        return cachedService.findUsernamesByPrefix(prefixes[(int) (counter++ & 3)], 10);
+    }
+
+    // Reads the running counts; cost follows the number of states and zip3 prefixes, not rows
+    @Benchmark
+    public Object getAggregates() {
+        return cachedService.getAggregates();
+    }
+
+    @Benchmark
+    public Object getAllUsers_firstPage() {
+        return uncachedService.getAllUsers(null, 50);
+    }
+
+    @Benchmark
+    public Object getAllUsers_midTablePage() {
+        return uncachedService.getAllUsers(midTableCursor, 50);
+    }
+
+    @Benchmark
+    public Object updateUserProfile() {
+        String city = (counter++ & 1) == 0 ? "Shelbyville" : "Springfield";
+        return uncachedService.updateUserProfile(username, UserProfilePatchOperation.replace("city", city));
+    }
+
+    @Benchmark
+    public Object createThenDeleteUserProfile() {
+        String newUsername = "bench" + counter++;
+        uncachedService.createUserProfile(new UserProfileCreateRequest(
+                newUsername,
+                newUsername + "@example.com",
+                "1 Bench St",
+                "Springfield",
+                "IL",
+                "62701"
+        ));
+        return uncachedService.deleteUserProfile(newUsername);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.DemoApp.benchmark;
+
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.exception.InvalidUserInputException;
+import com.example.DemoApp.validation.UserProfileValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the validator entry points used by the controller. The *_regexBaseline methods run
+ * the String.matches calls the scanners replaced, for a side-by-side comparison (run with -prof gc to
+ * see the allocation difference as well).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserProfileValidatorBenchmark {
+
+    // Non-final so the JIT cannot constant-fold the inputs
+    private String username = "alpha001";
+    private String invalidUsername = "abc123#";
+    private String email = "valid.user@example.co.uk";
+
+    private UserProfileCreateRequest createPayload = new UserProfileCreateRequest(
+            "validuser",
+            "valid.user@example.com",
+            "123 Main St",
+            "Chicago",
+            "IL",
+            "60601"
+    );
+
+    private UserProfilePatchOperation patchPayload = UserProfilePatchOperation.replace("city", "Springfield");
+
+    @Benchmark
+    public void validateUsername() {
+        UserProfileValidator.validateUsername(username);
+    }
+
+    @Benchmark
+    public Object validateUsername_invalid() {
+        try {
+            UserProfileValidator.validateUsername(invalidUsername);
+            return null;
+        } catch (InvalidUserInputException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public boolean validateUsername_regexBaseline() {
+        return username.matches("^[A-Za-z0-9]{1,32}$");
+    }
+
+    @Benchmark
+    public void validateEmail() {
+        UserProfileValidator.validateEmail(email);
+    }
+
+    @Benchmark
+    public boolean validateEmail_regexBaseline() {
+        return email.matches("^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+(\\.[a-zA-Z0-9._-]+)*\\.[a-zA-Z]{2,}$");
+    }
+
+    @Benchmark
+    public void validateCreateRequest() {
+        UserProfileValidator.validateCreateRequest(createPayload);
+    }
+
+    @Benchmark
+    public void validatePatchRequest() {
+        UserProfileValidator.validatePatchRequest(patchPayload);
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.DemoApp.loadtest;
+
+import com.example.DemoApp.DemoAppApplication;
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.repository.UserProfileRepository;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the app and drives a weighted mix of GET, POST, PATCH and DELETE against /api/v1/demo/users, then
+ * prints throughput and p50/p95/p99/p99.9 latency per endpoint. Each endpoint also gets an HdrHistogram
+ * interval log with one histogram per second, written to build/reports/loadtest/{label}/{endpoint}.hlog,
+ * so runs from two builds can be compared with HdrHistogram's HistogramLogProcessor or plotter.
+ * <p>
+ * Two load models are supported:
+ * <ul>
+ *   <li>{@code closed} (default): load.clients clients each send their next request as soon as the last
+ *   one returns. This finds peak throughput, but a stalled server also stalls its clients, so the
+ *   percentiles understate stalls (coordinated omission).</li>
+ *   <li>{@code open}: requests are scheduled at load.rate per second whatever the server is doing, and each
+ *   latency is measured from when the request was due, so time spent queued behind a stall is counted.
+ *   At most load.maxInFlight requests are outstanding; past that the schedule slips, and the slip still
+ *   shows up as latency.</li>
+ * </ul>
+ * Run with {@code ./gradlew loadTest}, e.g. {@code ./gradlew loadTest -Dload.mode=open -Dload.rate=2000}.
+ * Tunables: -Dload.mode (closed or open), -Dload.clients (default 64), -Dload.rate (requests per second in
+ * open mode, default 1000), -Dload.maxInFlight (default 10000), -Dload.seconds (measured time, default 30),
+ * -Dload.warmupSeconds (default 10), -Dload.mix (default get=70,post=10,patch=15,delete=5),
+ * -Dload.users (users seeded for GET and PATCH, default 10000) and -Dload.label (output directory name,
+ * default the start time).
+ * <p>
+ * DELETEs remove users created by earlier POSTs, or spare users seeded for the purpose, so every request
+ * in the mix targets a user that exists.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    private static final String USERS_PATH = "/api/v1/demo/users";
+    private static final String[] CITIES = {"Chicago", "Springfield", "Madison", "Omaha", "Denver", "Austin"};
+
+    enum Endpoint {
+        GET(200), POST(200), PATCH(200), DELETE(204);
+
+        final int expectedStatus;
+
+        Endpoint(int expectedStatus) {
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    private final URI usersUri;
+    private final int users;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Queue<String> deletable = new ConcurrentLinkedQueue<>();
+    private final AtomicLong created = new AtomicLong();
+
+    LoadGenerator(URI usersUri, int users, Map<Endpoint, Integer> mix) {
+        this.usersUri = usersUri;
+        this.users = users;
+        this.endpoints = mix.keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("load.mode", "closed");
+        int clients = Integer.getInteger("load.clients", 64);
+        int rate = Integer.getInteger("load.rate", 1000);
+        int maxInFlight = Integer.getInteger("load.maxInFlight", 10_000);
+        Duration measured = Duration.ofSeconds(Long.getLong("load.seconds", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+        int users = Integer.getInteger("load.users", 10_000);
+        Map<Endpoint, Integer> mix = parseMix(System.getProperty("load.mix", "get=70,post=10,patch=15,delete=5"));
+        String label = System.getProperty("load.label",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Path outputDir = Path.of("build", "reports", "loadtest", label);
+
+        if (!mode.equals("closed") && !mode.equals("open")) {
+            throw new IllegalArgumentException("load.mode must be closed or open, not " + mode);
+        }
+
+        try (ConfigurableApplicationContext app = start();
+             LoadGenerator generator = new LoadGenerator(usersUri(app), users, mix)) {
+            generator.seed(app.getBean(UserProfileRepository.class), mix.getOrDefault(Endpoint.DELETE, 0) > 0);
+
+            String description = mode.equals("open")
+                    ? String.format("open model, %d req/s, at most %d in flight", rate, maxInFlight)
+                    : String.format("closed model, %d clients", clients);
+            System.out.println("Warming up for " + warmup.toSeconds() + "s (" + description + ")");
+            generator.drive(mode, clients, rate, maxInFlight, warmup);
+            generator.discardRecorded();
+
+            System.out.println("Measuring for " + measured.toSeconds() + "s");
+            Files.createDirectories(outputDir);
+            List<String> report = generator.measure(mode, clients, rate, maxInFlight, measured, outputDir);
+            report.add(0, "Mix " + mix + ", " + description);
+            Files.write(outputDir.resolve("summary.txt"), report);
+
+            System.out.println();
+            report.forEach(System.out::println);
+            System.out.println();
+            System.out.println("Histogram logs written to " + outputDir.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(DemoAppApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=20000",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static URI usersUri(ConfigurableApplicationContext app) {
+        return URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port") + USERS_PATH);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no endpoint with a positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    // Seeded straight through the repository so the measured run starts from a known table size
+    private void seed(UserProfileRepository repository, boolean withSpares) {
+        List<UserProfile> profiles = new ArrayList<>(users * 2);
+        for (int i = 0; i < users; i++) {
+            profiles.add(profile("load" + i));
+            if (withSpares) {
+                profiles.add(profile("spare" + i));
+                deletable.add("spare" + i);
+            }
+        }
+        repository.saveAll(profiles);
+    }
+
+    private static UserProfile profile(String username) {
+        return UserProfile.builder()
+                .username(username)
+                .emailAddress(username + "@example.com")
+                .streetAddress("1 Load St")
+                .city("Chicago")
+                .state("IL")
+                .zipCode("60601")
+                .build();
+    }
+
+    private List<String> measure(String mode, int clients, int rate, int maxInFlight, Duration duration, Path outputDir)
+            throws IOException, InterruptedException {
+        Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, HistogramLogWriter> logs = new EnumMap<>(Endpoint.class);
+        long startedMillis = System.currentTimeMillis();
+        for (Endpoint endpoint : endpoints) {
+            totals.put(endpoint, new Histogram(3));
+            logs.put(endpoint, openLog(outputDir.resolve(endpoint.name().toLowerCase(Locale.ROOT) + ".hlog"), startedMillis));
+        }
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> writeIntervals(totals, logs), 1, 1, TimeUnit.SECONDS);
+        long started = System.nanoTime();
+        drive(mode, clients, rate, maxInFlight, duration);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        reporter.shutdown();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        writeIntervals(totals, logs);
+        logs.values().forEach(HistogramLogWriter::close);
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-8s %10s %8s %10s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Endpoint endpoint : endpoints) {
+            Histogram histogram = totals.get(endpoint);
+            long endpointErrors = errors.get(endpoint).sum();
+            report.add(row(endpoint.name(), histogram, endpointErrors, seconds));
+            all.add(histogram);
+            allErrors += endpointErrors;
+        }
+        report.add(row("ALL", all, allErrors, seconds));
+        return report;
+    }
+
+    private static HistogramLogWriter openLog(Path file, long startedMillis) throws FileNotFoundException {
+        HistogramLogWriter log = new HistogramLogWriter(new PrintStream(file.toFile()));
+        log.outputLogFormatVersion();
+        log.outputStartTime(startedMillis);
+        log.setBaseTime(startedMillis);
+        log.outputLegend();
+        return log;
+    }
+
+    // Values are recorded in nanoseconds; the logs' max column is scaled to milliseconds
+    private void writeIntervals(Map<Endpoint, Histogram> totals, Map<Endpoint, HistogramLogWriter> logs) {
+        for (Endpoint endpoint : endpoints) {
+            Histogram interval = recorders.get(endpoint).getIntervalHistogram();
+            totals.get(endpoint).add(interval);
+            logs.get(endpoint).outputIntervalHistogram(interval);
+        }
+    }
+
+    private static String row(String name, Histogram histogram, long errors, double seconds) {
+        return String.format("%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name,
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(95) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6);
+    }
+
+    private void discardRecorded() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.get(endpoint).getIntervalHistogram();
+            errors.get(endpoint).reset();
+        }
+    }
+
+    // Returns once every request started within the duration has completed
+    private void drive(String mode, int clients, int rate, int maxInFlight, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        if (mode.equals("open")) {
+            driveOpen(rate, maxInFlight, deadline);
+        } else {
+            driveClosed(clients, deadline);
+        }
+    }
+
+    private void driveClosed(int clients, long deadline) {
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                pool.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(nextEndpoint(), System.nanoTime());
+                    }
+                });
+            }
+        }
+    }
+
+    private void driveOpen(int rate, int maxInFlight, long deadline) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1e9 / rate;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            long started = System.nanoTime();
+            for (long i = 0; ; i++) {
+                long due = started + (long) (i * intervalNanos);
+                if (due >= deadline) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                Endpoint endpoint = nextEndpoint();
+                pool.execute(() -> {
+                    try {
+                        send(endpoint, due);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private Endpoint nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < endpoints.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        throw new IllegalStateException("Weight " + pick + " is outside the mix");
+    }
+
+    // Latency runs from startNanos, which in the open model is when the request was due, not when it was sent
+    private void send(Endpoint endpoint, long startNanos) {
+        String username = switch (endpoint) {
+            case GET, PATCH -> "load" + ThreadLocalRandom.current().nextInt(users);
+            case POST -> "created" + created.incrementAndGet();
+            case DELETE -> deletable.poll();
+        };
+        if (username == null) {
+            // More DELETEs than POSTs and spares combined; nothing left that is safe to delete
+            errors.get(endpoint).increment();
+            return;
+        }
+
+        boolean ok;
+        try {
+            ok = http.send(request(endpoint, username), HttpResponse.BodyHandlers.discarding()).statusCode()
+                    == endpoint.expectedStatus;
+        } catch (IOException ex) {
+            ok = false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorders.get(endpoint).recordValue(System.nanoTime() - startNanos);
+        if (!ok) {
+            errors.get(endpoint).increment();
+        } else if (endpoint == Endpoint.POST) {
+            deletable.add(username);
+        }
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+
+    private HttpRequest request(Endpoint endpoint, String username) {
+        URI userUri = URI.create(usersUri + "/" + username);
+        HttpRequest.Builder request = HttpRequest.newBuilder().timeout(Duration.ofSeconds(60));
+        return switch (endpoint) {
+            case GET -> request.uri(userUri).GET().build();
+            case DELETE -> request.uri(userUri).DELETE().build();
+            case PATCH -> request.uri(userUri)
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"op\":\"replace\",\"path\":\"city\",\"value\":\""
+                                    + CITIES[ThreadLocalRandom.current().nextInt(CITIES.length)] + "\"}"))
+                    .build();
+            case POST -> request.uri(usersUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                            "{\"username\":\"%s\",\"emailAddress\":\"%s@example.com\",\"streetAddress\":\"1 Load St\","
+                                    + "\"city\":\"Chicago\",\"state\":\"IL\",\"zipCode\":\"60601\"}",
+                            username, username)))
+                    .build();
+        };
+    }
+}
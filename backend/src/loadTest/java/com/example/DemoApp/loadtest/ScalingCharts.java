@@ -0,0 +1,135 @@
+package com.example.DemoApp.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Renders the scaling suite's results as one self-contained HTML page of inline SVG line charts, so the
+ * report opens in any browser without a plotting library. Both axes are log10: a line with the same
+ * slope as the row count grows linearly with the table, and a flat line does not depend on its size.
+ */
+final class ScalingCharts {
+
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 420;
+    private static final int LEFT = 70;
+    private static final int RIGHT = 190;
+    private static final int TOP = 40;
+    private static final int BOTTOM = 50;
+    private static final String[] COLORS = {
+            "#1f77b4", "#ff7f0e", "#2ca02c", "#d62728", "#9467bd", "#8c564b", "#e377c2", "#7f7f7f",
+            "#bcbd22", "#17becf", "#393b79", "#637939", "#8c6d31", "#843c39", "#7b4173", "#3182bd"
+    };
+
+    private ScalingCharts() {
+    }
+
+    static String html(List<Long> sizes, List<ScalingSuite.Result> results, List<ScalingSuite.Footprint> footprints) {
+        StringBuilder page = new StringBuilder("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\">"
+                + "<title>User profile scaling</title></head>\n<body style=\"font-family: sans-serif\">\n"
+                + "<h1>User profile endpoints by table size</h1>\n");
+        page.append(chart("p50 latency (ms)", sizes,
+                series(results, result -> result.latencies().getValueAtPercentile(50) / 1e6)));
+        page.append(chart("p99 latency (ms)", sizes,
+                series(results, result -> result.latencies().getValueAtPercentile(99) / 1e6)));
+
+        Map<String, double[]> memory = new LinkedHashMap<>();
+        memory.put("heap in use", footprints.stream().mapToDouble(footprint -> footprint.heapBytes() / 1048576.0).toArray());
+        memory.put("startup seconds", footprints.stream().mapToDouble(ScalingSuite.Footprint::loadSeconds).toArray());
+        page.append(chart("Heap in use after GC (MB) and startup time (s)", sizes, memory));
+        return page.append("</body></html>\n").toString();
+    }
+
+    // One line per endpoint, with a point per size in the order the sizes ran
+    private static Map<String, double[]> series(List<ScalingSuite.Result> results,
+                                                ToDoubleFunction<ScalingSuite.Result> value) {
+        Map<String, List<ScalingSuite.Result>> byEndpoint = new LinkedHashMap<>();
+        for (ScalingSuite.Result result : results) {
+            byEndpoint.computeIfAbsent(result.endpoint(), endpoint -> new ArrayList<>()).add(result);
+        }
+        Map<String, double[]> series = new LinkedHashMap<>();
+        byEndpoint.forEach((endpoint, points) -> series.put(endpoint, points.stream().mapToDouble(value).toArray()));
+        return series;
+    }
+
+    private static String chart(String title, List<Long> sizes, Map<String, double[]> series) {
+        double minX = Math.log10(sizes.stream().mapToLong(Long::longValue).min().orElse(1));
+        double maxX = Math.log10(sizes.stream().mapToLong(Long::longValue).max().orElse(10));
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (double[] values : series.values()) {
+            for (double value : values) {
+                double y = Math.log10(Math.max(value, 0.001));
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        minY = Math.floor(minY);
+        maxY = Math.max(Math.ceil(maxY), minY + 1);
+        maxX = Math.max(maxX, minX + 1);
+
+        StringBuilder svg = new StringBuilder();
+        svg.append(String.format(Locale.ROOT, "<h2>%s</h2>\n<svg width=\"%d\" height=\"%d\" "
+                + "xmlns=\"http://www.w3.org/2000/svg\" font-size=\"12\">\n", title, WIDTH, HEIGHT));
+        int plotWidth = WIDTH - LEFT - RIGHT;
+        int plotHeight = HEIGHT - TOP - BOTTOM;
+        svg.append(String.format(Locale.ROOT, "<rect x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" "
+                + "fill=\"none\" stroke=\"#999\"/>\n", LEFT, TOP, plotWidth, plotHeight));
+
+        for (long size : sizes) {
+            double x = LEFT + (Math.log10(size) - minX) / (maxX - minX) * plotWidth;
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%.1f\" y1=\"%d\" x2=\"%.1f\" y2=\"%d\" stroke=\"#eee\"/>"
+                    + "<text x=\"%.1f\" y=\"%d\" text-anchor=\"middle\">%s</text>\n",
+                    x, TOP, x, TOP + plotHeight, x, TOP + plotHeight + 18, rowsLabel(size)));
+        }
+        for (double decade = minY; decade <= maxY; decade++) {
+            double y = TOP + plotHeight - (decade - minY) / (maxY - minY) * plotHeight;
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" y1=\"%.1f\" x2=\"%d\" y2=\"%.1f\" stroke=\"#eee\"/>"
+                    + "<text x=\"%d\" y=\"%.1f\" text-anchor=\"end\">%s</text>\n",
+                    LEFT, y, LEFT + plotWidth, y, LEFT - 6, y + 4, trim(Math.pow(10, decade))));
+        }
+        svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\">rows</text>\n",
+                LEFT + plotWidth / 2, HEIGHT - 8));
+
+        int color = 0;
+        for (Map.Entry<String, double[]> line : series.entrySet()) {
+            String stroke = COLORS[color % COLORS.length];
+            StringBuilder points = new StringBuilder();
+            double[] values = line.getValue();
+            for (int i = 0; i < values.length && i < sizes.size(); i++) {
+                double x = LEFT + (Math.log10(sizes.get(i)) - minX) / (maxX - minX) * plotWidth;
+                double y = TOP + plotHeight
+                        - (Math.log10(Math.max(values[i], 0.001)) - minY) / (maxY - minY) * plotHeight;
+                points.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+                svg.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"3\" fill=\"%s\">"
+                        + "<title>%s: %s</title></circle>\n", x, y, stroke, line.getKey(), trim(values[i])));
+            }
+            svg.append(String.format(Locale.ROOT, "<polyline points=\"%s\" fill=\"none\" stroke=\"%s\" "
+                    + "stroke-width=\"2\"/>\n", points.toString().trim(), stroke));
+            int legendY = TOP + 14 * color;
+            svg.append(String.format(Locale.ROOT, "<rect x=\"%d\" y=\"%d\" width=\"12\" height=\"3\" fill=\"%s\"/>"
+                    + "<text x=\"%d\" y=\"%d\">%s</text>\n",
+                    LEFT + plotWidth + 12, legendY + 2, stroke, LEFT + plotWidth + 30, legendY + 6, line.getKey()));
+            color++;
+        }
+        return svg.append("</svg>\n").toString();
+    }
+
+    private static String rowsLabel(long rows) {
+        if (rows >= 1_000_000 && rows % 1_000_000 == 0) {
+            return rows / 1_000_000 + "M";
+        }
+        if (rows >= 1_000 && rows % 1_000 == 0) {
+            return rows / 1_000 + "k";
+        }
+        return String.valueOf(rows);
+    }
+
+    private static String trim(double value) {
+        return value >= 10 ? String.format(Locale.ROOT, "%.0f", value) : String.format(Locale.ROOT, "%.3g", value);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.DemoApp.loadtest;
+
+import com.example.DemoApp.DemoAppApplication;
+import com.example.DemoApp.service.UserProfileCursor;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures every UserProfileController endpoint against tables of 10k, 100k, 1M and 10M synthetic rows.
+ * Each size gets a fresh app loaded by {@link SyntheticDataConfig}. The suite records heap in use after
+ * a full GC, sends warmup requests to each endpoint, then times scaling.requests sequential requests
+ * per endpoint. The export and import endpoints, which do much more work per call, get fewer.
+ * <p>
+ * Results go to build/reports/scaling/: results.csv (latency per size and endpoint), memory.csv (load
+ * time and heap per size) and scaling.html, which charts p50 and p99 latency per endpoint and heap
+ * against row count on log scales. Sizes are loaded from the same seed, so two builds measure the same
+ * data and their results.csv files can be compared directly.
+ * <p>
+ * Run with {@code ./gradlew scalingSuite}. The 10M table is held in H2's memory, so that size needs a large
+ * heap (-PscalingHeap, default 12g). Tunables: -Dscaling.sizes (comma separated, default
+ * 10000,100000,1000000,10000000), -Dscaling.seed (default 42), -Dscaling.requests (default 200),
+ * -Dscaling.warmup (default 50), -Dscaling.exportRequests (default 3), -Dscaling.importRequests
+ * (default 5).
+ */
+public class ScalingSuite {
+
+    private static final String USERS_PATH = "/api/v1/demo/users";
+    private static final int IMPORT_ROWS = 1_000;
+    private static final int BULK_ITEMS = 100;
+    // data.sql seeds ten profiles before the synthetic rows, so synthetic row i has id i + 11
+    private static final long FIRST_SYNTHETIC_ID = 11;
+
+    /** One endpoint call; returns whether the response had the expected status. */
+    @FunctionalInterface
+    interface Call {
+        boolean run(int iteration) throws IOException, InterruptedException;
+    }
+
+    record Probe(String name, int requests, Call call) {
+    }
+
+    record Result(long rows, String endpoint, Histogram latencies, long errors) {
+    }
+
+    record Footprint(long rows, double loadSeconds, long heapBytes) {
+    }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final SyntheticProfiles profiles;
+    private final SplittableRandom random;
+    private final int requests;
+    private final int warmup;
+    private final int exportRequests;
+    private final int importRequests;
+
+    ScalingSuite(long seed, int requests, int warmup, int exportRequests, int importRequests) {
+        this.profiles = new SyntheticProfiles(seed);
+        this.random = new SplittableRandom(seed);
+        this.requests = requests;
+        this.warmup = warmup;
+        this.exportRequests = exportRequests;
+        this.importRequests = importRequests;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seed = Long.getLong("scaling.seed", 42);
+        List<Long> sizes = new ArrayList<>();
+        for (String size : System.getProperty("scaling.sizes", "10000,100000,1000000,10000000").split(",")) {
+            sizes.add(Long.parseLong(size.trim()));
+        }
+        ScalingSuite suite = new ScalingSuite(seed,
+                Integer.getInteger("scaling.requests", 200),
+                Integer.getInteger("scaling.warmup", 50),
+                Integer.getInteger("scaling.exportRequests", 3),
+                Integer.getInteger("scaling.importRequests", 5));
+
+        List<Result> results = new ArrayList<>();
+        List<Footprint> footprints = new ArrayList<>();
+        for (long rows : sizes) {
+            System.out.println("Loading " + rows + " rows (seed " + seed + ")");
+            long started = System.nanoTime();
+            try (ConfigurableApplicationContext app = start(rows, seed)) {
+                double loadSeconds = (System.nanoTime() - started) / 1e9;
+                Footprint footprint = new Footprint(rows, loadSeconds, heapInUse());
+                footprints.add(footprint);
+                System.out.printf(Locale.ROOT, "  started in %.1f s, %d MB heap in use%n",
+                        loadSeconds, footprint.heapBytes() >> 20);
+
+                URI usersUri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port")
+                        + USERS_PATH);
+                for (Probe probe : suite.probes(usersUri, rows)) {
+                    Result result = suite.measure(rows, probe);
+                    results.add(result);
+                    System.out.println("  " + row(result));
+                }
+            }
+        }
+
+        Path outputDir = Path.of("build", "reports", "scaling");
+        Files.createDirectories(outputDir);
+        List<String> csv = new ArrayList<>();
+        csv.add("rows,endpoint,requests,errors,p50_ms,p95_ms,p99_ms,max_ms");
+        results.forEach(result -> csv.add(row(result)));
+        Files.write(outputDir.resolve("results.csv"), csv);
+        List<String> memory = new ArrayList<>();
+        memory.add("rows,startup_seconds,heap_mb");
+        footprints.forEach(footprint -> memory.add(String.format(Locale.ROOT, "%d,%.1f,%d",
+                footprint.rows(), footprint.loadSeconds(), footprint.heapBytes() >> 20)));
+        Files.write(outputDir.resolve("memory.csv"), memory);
+        Files.writeString(outputDir.resolve("scaling.html"), ScalingCharts.html(sizes, results, footprints));
+        System.out.println("Results written to " + outputDir.toAbsolutePath());
+        suite.http.close();
+    }
+
+    private static ConfigurableApplicationContext start(long rows, long seed) {
+        return new SpringApplicationBuilder(DemoAppApplication.class, SyntheticDataConfig.class)
+                .properties(
+                        "server.port=0",
+                        "synthetic.rows=" + rows,
+                        "synthetic.seed=" + seed,
+                        // Size the filter for the table so its false-positive rate stays the configured one
+                        "demo.username-filter.expected-insertions=" + Math.max(rows * 2, 1_000_000),
+                        "demo.username-filter.max-memory=64MB",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static long heapInUse() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String row(Result result) {
+        Histogram latencies = result.latencies();
+        return String.format(Locale.ROOT, "%d,%s,%d,%d,%.3f,%.3f,%.3f,%.3f",
+                result.rows(),
+                result.endpoint(),
+                latencies.getTotalCount(),
+                result.errors(),
+                latencies.getValueAtPercentile(50) / 1e6,
+                latencies.getValueAtPercentile(95) / 1e6,
+                latencies.getValueAtPercentile(99) / 1e6,
+                latencies.getMaxValue() / 1e6);
+    }
+
+    private Result measure(long rows, Probe probe) throws IOException, InterruptedException {
+        int warmupCalls = Math.min(warmup, probe.requests());
+        for (int i = 0; i < warmupCalls; i++) {
+            probe.call().run(-1 - i);
+        }
+        Histogram latencies = new Histogram(3);
+        long errors = 0;
+        for (int i = 0; i < probe.requests(); i++) {
+            long started = System.nanoTime();
+            boolean ok = probe.call().run(i);
+            latencies.recordValue(System.nanoTime() - started);
+            if (!ok) {
+                errors++;
+            }
+        }
+        return new Result(rows, probe.name(), latencies, errors);
+    }
+
+    /**
+     * One probe per endpoint, in an order where nothing reads what an earlier probe removed: DELETE runs
+     * last and takes rows from the end of the table, and write probes use iteration numbers (negative
+     * during warmup) to keep their usernames unique.
+     */
+    private List<Probe> probes(URI usersUri, long rows) {
+        AtomicReference<String> lastImport = new AtomicReference<>();
+        return List.of(
+                new Probe("get", requests, i -> get(usersUri + "/" + profiles.username(anyRow(rows)), 200)),
+                new Probe("list-first-page", requests, i -> get(usersUri + "/?limit=50", 200)),
+                new Probe("list-deep-page", requests, i -> get(usersUri + "/?limit=50&cursor="
+                        + UserProfileCursor.encode(FIRST_SYNTHETIC_ID + rows - 100 - random.nextInt(50)), 200)),
+                new Probe("search-email", requests, i -> get(usersUri + "/_search?emailAddress="
+                        + profiles.row(anyRow(rows)).emailAddress(), 200)),
+                new Probe("search-city", requests, i -> get(usersUri + "/_search?city="
+                        + profiles.row(anyRow(rows)).city().replace(" ", "%20"), 200)),
+                new Probe("search-state", requests, i -> get(usersUri + "/_search?state="
+                        + profiles.row(anyRow(rows)).state(), 200)),
+                new Probe("search-zip", requests, i -> get(usersUri + "/_search?zipCode="
+                        + profiles.row(anyRow(rows)).zipCode(), 200)),
+                new Probe("typeahead", requests, i -> get(usersUri + "/_typeahead?prefix="
+                        + profiles.username(anyRow(rows)).substring(0, 3), 200)),
+                new Probe("aggregates", requests, i -> get(usersUri + "/_aggregates", 200)),
+                new Probe("export", exportRequests, i -> get(usersUri + "/_export", 200)),
+                new Probe("create", requests, i -> send(HttpRequest.newBuilder(usersUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(createJson(newUsername("create", i, 0))))
+                        .build(), 200)),
+                new Probe("bulk-create", requests, i -> {
+                    StringBuilder body = new StringBuilder("[");
+                    for (int item = 0; item < BULK_ITEMS; item++) {
+                        body.append(item == 0 ? "" : ",").append(createJson(newUsername("bulk", i, item)));
+                    }
+                    return send(HttpRequest.newBuilder(URI.create(usersUri + "/_bulk"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.append("]").toString()))
+                            .build(), 200);
+                }),
+                new Probe("import", importRequests, i -> importCsv(usersUri, i, lastImport)),
+                new Probe("import-status", requests, i -> lastImport.get() != null && get(lastImport.get(), 200)),
+                new Probe("patch", requests, i -> send(HttpRequest.newBuilder(
+                                URI.create(usersUri + "/" + profiles.username(anyRow(rows))))
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                "{\"op\":\"replace\",\"path\":\"city\",\"value\":\"Omaha\"}"))
+                        .build(), 200)),
+                new Probe("delete", requests, i -> send(HttpRequest.newBuilder(
+                                URI.create(usersUri + "/" + profiles.username(rows - warmup - 1 - i)))
+                        .DELETE()
+                        .build(), 204))
+        );
+    }
+
+    private long anyRow(long rows) {
+        return random.nextLong(rows);
+    }
+
+    private static String newUsername(String prefix, int iteration, int item) {
+        return prefix + (iteration < 0 ? "w" + -iteration : String.valueOf(iteration)) + "x" + item;
+    }
+
+    private static String createJson(String username) {
+        return "{\"username\":\"" + username + "\",\"emailAddress\":\"" + username + "@example.com\","
+                + "\"streetAddress\":\"1 Scale St\",\"city\":\"Chicago\",\"state\":\"IL\",\"zipCode\":\"60601\"}";
+    }
+
+    private boolean get(String uri, int expectedStatus) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(uri)).GET().build(), expectedStatus);
+    }
+
+    private boolean send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == expectedStatus;
+    }
+
+    // Times the whole job: upload, then poll the returned Location until the import is no longer running
+    private boolean importCsv(URI usersUri, int iteration, AtomicReference<String> lastImport)
+            throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("username,emailAddress,streetAddress,city,state,zipCode\n");
+        for (int row = 0; row < IMPORT_ROWS; row++) {
+            String username = newUsername("imp", iteration, row);
+            csv.append(username).append(',').append(username).append("@example.com,1 Import St,Chicago,IL,60601\n");
+        }
+        String boundary = "scaling" + System.nanoTime();
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"users.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + csv
+                + "\r\n--" + boundary + "--\r\n";
+        HttpResponse<Void> started = http.send(HttpRequest.newBuilder(URI.create(usersUri + "/_import"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        String location = started.headers().firstValue("Location").orElse(null);
+        if (started.statusCode() != 202 || location == null) {
+            return false;
+        }
+        lastImport.set(location);
+
+        while (true) {
+            HttpResponse<String> status = http.send(HttpRequest.newBuilder(URI.create(location)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (status.statusCode() != 200) {
+                return false;
+            }
+            if (!status.body().contains("\"state\":\"RUNNING\"")) {
+                return status.body().contains("\"state\":\"COMPLETED\"");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
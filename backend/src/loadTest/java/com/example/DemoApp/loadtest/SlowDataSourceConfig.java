@@ -0,0 +1,51 @@
+package com.example.DemoApp.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Makes the in-memory database behave like a remote one by holding every borrowed connection for a fixed
+ * delay before handing it out. Set with -Dbenchmark.dbLatencyMs (default 20, 0 disables).
+ * Deliberately not annotated, so component scanning never picks it up; benchmarks add it as a source.
+ */
+public class SlowDataSourceConfig {
+
+    static final Duration DB_LATENCY = Duration.ofMillis(Long.getLong("benchmark.dbLatencyMs", 20));
+
+    @Bean
+    static BeanPostProcessor slowDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !DB_LATENCY.isZero()) {
+                    return new SlowDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class SlowDataSource extends DelegatingDataSource {
+
+        SlowDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(DB_LATENCY);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.DemoApp.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bulk-loads synthetic.rows rows from {@link SyntheticProfiles} with seed synthetic.seed (default 42) on
+ * top of the data.sql seed. Rows go in through plain JDBC batches with ids assigned here, bypassing JPA,
+ * and the id sequence is moved past them afterwards.
+ * <p>
+ * The load runs as an ApplicationRunner, which Spring Boot calls before publishing ApplicationReadyEvent,
+ * so the username filter, typeahead index and location counts are built from the full table as they
+ * would be on a real startup. Deliberately not annotated; benchmarks add it as a source.
+ */
+public class SyntheticDataConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataConfig.class);
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ROWS_PER_COMMIT = 100_000;
+
+    @Bean
+    static ApplicationRunner syntheticDataLoader(JdbcTemplate jdbcTemplate, Environment environment) {
+        return args -> {
+            long rows = environment.getProperty("synthetic.rows", Long.class, 0L);
+            long seed = environment.getProperty("synthetic.seed", Long.class, 42L);
+            if (rows > 0) {
+                long started = System.nanoTime();
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    load(connection, new SyntheticProfiles(seed), rows);
+                    return null;
+                });
+                log.info("Loaded {} synthetic profiles (seed {}) in {} ms", rows, seed,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+        };
+    }
+
+    private static void load(Connection connection, SyntheticProfiles profiles, long rows) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        long firstId;
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select coalesce(max(id), 0) + 1 from user_profile")) {
+            result.next();
+            firstId = result.getLong(1);
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement("""
+                insert into user_profile (id, username, email_address, street_address, city, state, zip_code)
+                values (?, ?, ?, ?, ?, ?, ?)""")) {
+            for (long i = 0; i < rows; i++) {
+                SyntheticProfiles.Row row = profiles.row(i);
+                insert.setLong(1, firstId + i);
+                insert.setString(2, row.username());
+                insert.setString(3, row.emailAddress());
+                insert.setString(4, row.streetAddress());
+                insert.setString(5, row.city());
+                insert.setString(6, row.state());
+                insert.setString(7, row.zipCode());
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+                if ((i + 1) % ROWS_PER_COMMIT == 0) {
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            // DDL takes no bind parameters; the value is a long we computed
+            statement.execute("alter sequence user_profile_seq restart with " + (firstId + rows));
+        }
+        connection.commit();
+        connection.setAutoCommit(autoCommit);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.DemoApp.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic user profiles. Row i of a given seed is always the same, so a dataset of any
+ * size can be regenerated instead of stored, and a benchmark can pick an existing username by index
+ * without reading the table.
+ * <p>
+ * Usernames are a lowercase first initial and surname followed by the row index, so they are unique
+ * (letters never run into the digits) and stay within the 32-character limit. States follow rough
+ * population weights; within a state, earlier cities are more common, and each zip code starts with its
+ * city's real three-digit prefix so the zip3 aggregates look like real data.
+ */
+public final class SyntheticProfiles {
+
+    public record Row(String username, String emailAddress, String streetAddress, String city, String state,
+                      String zipCode) {
+    }
+
+    private record City(String name, String zip3) {
+    }
+
+    private record State(String code, double weight, City... cities) {
+    }
+
+    private static final State[] STATES = {
+            new State("CA", 39.0, new City("Los Angeles", "900"), new City("San Diego", "921"),
+                    new City("San Jose", "951"), new City("San Francisco", "941"), new City("Sacramento", "958")),
+            new State("TX", 30.0, new City("Houston", "770"), new City("Dallas", "752"),
+                    new City("San Antonio", "782"), new City("Austin", "787")),
+            new State("FL", 22.0, new City("Jacksonville", "322"), new City("Miami", "331"),
+                    new City("Tampa", "336"), new City("Orlando", "328")),
+            new State("NY", 20.0, new City("New York", "100"), new City("Buffalo", "142"),
+                    new City("Rochester", "146"), new City("Albany", "122")),
+            new State("PA", 13.0, new City("Philadelphia", "191"), new City("Pittsburgh", "152"),
+                    new City("Allentown", "181")),
+            new State("IL", 12.5, new City("Chicago", "606"), new City("Naperville", "605"),
+                    new City("Springfield", "627")),
+            new State("OH", 11.8, new City("Columbus", "432"), new City("Cleveland", "441"),
+                    new City("Cincinnati", "452")),
+            new State("GA", 11.0, new City("Atlanta", "303"), new City("Savannah", "314")),
+            new State("NC", 10.7, new City("Charlotte", "282"), new City("Raleigh", "276")),
+            new State("MI", 10.0, new City("Detroit", "482"), new City("Grand Rapids", "495")),
+            new State("WA", 7.8, new City("Seattle", "981"), new City("Spokane", "992")),
+            new State("AZ", 7.4, new City("Phoenix", "850"), new City("Tucson", "857")),
+            new State("MA", 7.0, new City("Boston", "021"), new City("Worcester", "016")),
+            new State("CO", 5.9, new City("Denver", "802"), new City("Boulder", "803")),
+            new State("WI", 5.9, new City("Milwaukee", "532"), new City("Madison", "537")),
+            new State("NE", 2.0, new City("Omaha", "681"), new City("Lincoln", "685"))
+    };
+
+    private static final String[] SURNAMES = {
+            "smith", "johnson", "williams", "brown", "jones", "garcia", "miller", "davis", "rodriguez", "martinez",
+            "hernandez", "lopez", "gonzalez", "wilson", "anderson", "thomas", "taylor", "moore", "jackson", "martin",
+            "lee", "perez", "thompson", "white", "harris", "sanchez", "clark", "ramirez", "lewis", "robinson",
+            "walker", "young", "allen", "king", "wright", "scott", "torres", "nguyen", "hill", "flores"
+    };
+
+    private static final String[] STREETS = {
+            "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Lake", "Hill", "Park", "Sunset", "Lincoln"
+    };
+
+    private static final String[] STREET_SUFFIXES = {"St", "Ave", "Rd", "Blvd", "Ln", "Dr", "Ct"};
+
+    private static final String[] EMAIL_DOMAINS = {
+            "gmail.com", "yahoo.com", "outlook.com", "hotmail.com", "icloud.com", "example.com"
+    };
+    private static final double[] EMAIL_DOMAIN_WEIGHTS = cumulative(45, 15, 12, 8, 8, 12);
+
+    private static final double[] STATE_WEIGHTS =
+            cumulative(Arrays.stream(STATES).mapToDouble(State::weight).toArray());
+
+    private final long seed;
+
+    public SyntheticProfiles(long seed) {
+        this.seed = seed;
+    }
+
+    public Row row(long index) {
+        SplittableRandom random = randomFor(index);
+        String username = username(random, index);
+        State state = STATES[pick(STATE_WEIGHTS, random)];
+        City city = state.cities()[pickCity(state.cities().length, random)];
+        int zipSuffix = random.nextInt(100);
+        return new Row(
+                username,
+                username + "@" + EMAIL_DOMAINS[pick(EMAIL_DOMAIN_WEIGHTS, random)],
+                (1 + random.nextInt(9_999)) + " " + STREETS[random.nextInt(STREETS.length)] + " "
+                        + STREET_SUFFIXES[random.nextInt(STREET_SUFFIXES.length)],
+                city.name(),
+                state.code(),
+                city.zip3() + (zipSuffix < 10 ? "0" : "") + zipSuffix);
+    }
+
+    public String username(long index) {
+        return username(randomFor(index), index);
+    }
+
+    // The username is drawn first, so username(index) and row(index).username() always agree
+    private static String username(SplittableRandom random, long index) {
+        char initial = (char) ('a' + random.nextInt(26));
+        return initial + SURNAMES[random.nextInt(SURNAMES.length)] + index;
+    }
+
+    private SplittableRandom randomFor(long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+    }
+
+    // Zipf-like: the first city in a state is twice as likely as the second, three times the third, ...
+    private static int pickCity(int cities, SplittableRandom random) {
+        double total = 0;
+        for (int i = 1; i <= cities; i++) {
+            total += 1.0 / i;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < cities - 1; i++) {
+            target -= 1.0 / (i + 1);
+            if (target < 0) {
+                return i;
+            }
+        }
+        return cities - 1;
+    }
+
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int slot = Arrays.binarySearch(cumulativeWeights, target);
+        return slot >= 0 ? slot + 1 : -(slot + 1);
+    }
+
+    private static double[] cumulative(double... weights) {
+        double[] running = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            running[i] = total;
+        }
+        return running;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.DemoApp.loadtest;
+
+import com.example.DemoApp.DemoAppApplication;
+import jdk.jfr.consumer.RecordingStream;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the app once with Tomcat's platform thread pool and once with virtual threads, and drives
+ * GET /api/v1/demo/users/{username} with 100, 1k and 10k closed-loop clients against each. The profile cache
+ * is disabled and every connection checkout is delayed (see {@link SlowDataSourceConfig}) so requests spend
+ * their time waiting on the database, which is where the two threading models differ.
+ * <p>
+ * Run with {@code ./gradlew threadModeBenchmark}. Tunables: -Dbenchmark.seconds (measured time per level,
+ * default 15), -Dbenchmark.warmupSeconds (default 5), -Dbenchmark.clients (comma separated, default
+ * 100,1000,10000), -Dbenchmark.dbLatencyMs (default 20).
+ */
+public class ThreadModeBenchmark {
+
+    private static final String USERNAME = "alpha001";
+
+    public static void main(String[] args) throws Exception {
+        Duration measured = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+        Duration warmup = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 5));
+        List<Integer> clientCounts = new ArrayList<>();
+        for (String count : System.getProperty("benchmark.clients", "100,1000,10000").split(",")) {
+            clientCounts.add(Integer.parseInt(count.trim()));
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %8s %10s %8s %12s %9s %9s %9s %8s",
+                "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms", "pinned"));
+
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext app = start(virtualThreads)) {
+                URI target = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port")
+                        + "/api/v1/demo/users/" + USERNAME);
+                for (int clients : clientCounts) {
+                    run(target, clients, warmup, null);
+                    report.add(run(target, clients, measured, virtualThreads ? "virtual" : "platform"));
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println("DB latency per connection checkout: " + SlowDataSourceConfig.DB_LATENCY.toMillis() + " ms");
+        report.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(DemoAppApplication.class, SlowDataSourceConfig.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.hikari.maximum-pool-size=50",
+                        "spring.datasource.hikari.connection-timeout=30000",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=20000",
+                        "demo.cache.user-profiles.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static String run(URI target, int clients, Duration duration, String mode) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(60)).GET().build();
+        Recorder latencies = new Recorder(3);
+        LongAdder errors = new LongAdder();
+        LongAdder pinned = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (RecordingStream pinnedEvents = new RecordingStream();
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> pinned.increment());
+            pinnedEvents.startAsync();
+
+            for (int i = 0; i < clients; i++) {
+                pool.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.increment();
+                            }
+                        } catch (Exception ex) {
+                            errors.increment();
+                        }
+                        latencies.recordValue(System.nanoTime() - start);
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        } finally {
+            http.close();
+        }
+
+        Histogram histogram = latencies.getIntervalHistogram();
+        double seconds = duration.toNanos() / 1e9;
+        return String.format("%-9s %8d %10d %8d %12.1f %9.2f %9.2f %9.2f %8d",
+                mode,
+                clients,
+                histogram.getTotalCount(),
+                errors.sum(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getMaxValue() / 1e6,
+                pinned.sum());
+    }
+}
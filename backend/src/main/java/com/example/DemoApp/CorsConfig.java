@@ -1,6 +1,9 @@
 package com.example.DemoApp;
 
+import com.example.DemoApp.controller.ServerTimingAdvice;
+import com.example.DemoApp.service.UserProfileService;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -13,6 +16,8 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins("http://localhost:5173")
                 .allowedMethods("GET", "POST", "PATCH", "DELETE")
                 .allowedHeaders("*")
+                .exposedHeaders(UserProfileService.NEXT_CURSOR_HEADER, HttpHeaders.ETAG,
+                        ServerTimingAdvice.SERVER_TIMING_HEADER)
                 .allowCredentials(true);
     }
 }
\ No newline at end of file
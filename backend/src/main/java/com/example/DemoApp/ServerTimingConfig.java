@@ -0,0 +1,21 @@
+package com.example.DemoApp;
+
+import com.example.DemoApp.controller.ServerTimingAdvice;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    private final ServerTimingAdvice serverTimingAdvice;
+
+    public ServerTimingConfig(ServerTimingAdvice serverTimingAdvice) {
+        this.serverTimingAdvice = serverTimingAdvice;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(serverTimingAdvice).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.DemoApp;
+
+import com.example.DemoApp.controller.SqlStatisticsInterceptor;
+import com.example.DemoApp.repository.SqlStatementCounter;
+import com.example.DemoApp.repository.SqlStatisticsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires the per-request statement counts and Hibernate's slow-query log when demo.sql-statistics.enabled
+ * is set. Nothing here is registered otherwise, so statements go out without any inspection or logging.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "demo.sql-statistics", name = "enabled", havingValue = "true")
+public class SqlStatisticsConfig implements WebMvcConfigurer {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+    private final SqlStatisticsInterceptor interceptor;
+
+    public SqlStatisticsConfig(MeterRegistry meterRegistry) {
+        this.interceptor = new SqlStatisticsInterceptor(counter, meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernateProperties(SqlStatisticsProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+            hibernateProperties.put(AvailableSettings.LOG_SLOW_QUERY, properties.slowQueryThreshold().toMillis());
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+    }
+}
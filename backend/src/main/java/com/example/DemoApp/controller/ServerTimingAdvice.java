@@ -0,0 +1,65 @@
+package com.example.DemoApp.controller;
+
+import com.example.DemoApp.service.UserProfileTimings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds a Server-Timing header with the request's phase breakdown when demo.server-timing.enabled is set.
+ * As an interceptor it opens the breakdown before the handler runs; as body advice it writes the header
+ * just before the body, because a ResponseEntity body commits the response before postHandle would run.
+ * Bodiless responses such as 304s, and the streamed export, go out without the header.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final UserProfileTimings timings;
+    private final boolean enabled;
+
+    public ServerTimingAdvice(UserProfileTimings timings, @Value("${demo.server-timing.enabled:false}") boolean enabled) {
+        this.timings = timings;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (enabled) {
+            timings.openBreakdown();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (enabled) {
+            timings.closeBreakdown();
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        UserProfileTimings.Breakdown breakdown = timings.currentBreakdown();
+        if (breakdown != null) {
+            response.getHeaders().set(SERVER_TIMING_HEADER, breakdown.toHeaderValue());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.DemoApp.controller;
+
+import com.example.DemoApp.repository.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each request prepared, as the user.profiles.sql.statements summary
+ * tagged by method and URI pattern, and logs the count at DEBUG. Only statements prepared on the request
+ * thread are counted; work handed off to the import pool or a streaming body runs elsewhere.
+ */
+public class SqlStatisticsInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatisticsInterceptor.class);
+
+    public static final String METRIC_NAME = "user.profiles.sql.statements";
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatisticsInterceptor(SqlStatementCounter counter, MeterRegistry meterRegistry) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = counter.end();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder(METRIC_NAME)
+                .description("SQL statements prepared per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+        log.debug("{} {} prepared {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+    }
+}
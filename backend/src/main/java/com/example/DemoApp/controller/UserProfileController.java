@@ -1,16 +1,35 @@
 package com.example.DemoApp.controller;
 
+import com.example.DemoApp.dto.ImportJobStatus;
+import com.example.DemoApp.dto.UserProfileAggregates;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatch;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileSearch;
+import com.example.DemoApp.exception.InvalidUpdateException;
+import com.example.DemoApp.service.UserProfileBulkService;
+import com.example.DemoApp.service.UserProfileExportService;
+import com.example.DemoApp.service.UserProfileFormat;
+import com.example.DemoApp.service.UserProfileImportService;
 import com.example.DemoApp.service.UserProfileService;
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTimings.Phase;
 import com.example.DemoApp.validation.UserProfileValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.List;
 
 @Tag(name = "User Profile API", description = "CRUD operations for user profiles")
 @RestController
@@ -18,42 +37,143 @@ import java.util.Map;
 public class UserProfileController {
 
     private final UserProfileService userProfileService;
+    private final UserProfileExportService userProfileExportService;
+    private final UserProfileBulkService userProfileBulkService;
+    private final UserProfileImportService userProfileImportService;
+    private final UserProfileTimings timings;
 
-    public UserProfileController(UserProfileService userProfileService) {
+    public UserProfileController(UserProfileService userProfileService, UserProfileExportService userProfileExportService,
+                                 UserProfileBulkService userProfileBulkService, UserProfileImportService userProfileImportService,
+                                 UserProfileTimings timings) {
         this.userProfileService = userProfileService;
+        this.userProfileExportService = userProfileExportService;
+        this.userProfileBulkService = userProfileBulkService;
+        this.userProfileImportService = userProfileImportService;
+        this.timings = timings;
     }
 
     // GET route fetches a single user by username
-    @Operation(summary = "Get user by username", description = "Returns a user profile for the given username")
+    @Operation(summary = "Get user by username", description = "Returns a user profile for the given username "
+            + "as JSON, CBOR (application/cbor) or Smile (application/x-jackson-smile), following the Accept header. "
+            + "The ETag response header changes whenever the profile does; send it back in If-None-Match to get "
+            + "a bodiless 304 while the profile is unchanged.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User found"),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the given ETag"),
             @ApiResponse(responseCode = "400", description = "Invalid Username"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/users/{username}")
     public ResponseEntity<?> getUserProfile(
             @Parameter(description = "Username", example = "testuser123")
-            @PathVariable String username) {
+            @PathVariable String username,
+            @Parameter(description = "ETag from an earlier response for this user")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            UserProfileValidator.validateUsername(username);
-            return userProfileService.getUserProfile(username);
+            timings.run(UserProfileTimings.Operation.GET, Phase.VALIDATION,
+                    () -> UserProfileValidator.validateUsername(username));
+            return userProfileService.getUserProfile(username, ifNoneMatch, UserProfileFormat.negotiate(accept));
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
     }
 
-    // GET ALL users
-    @Operation(summary = "Get all users", description = "Returns all user profiles")
-    @ApiResponse(responseCode = "200", description = "User(s) found. If empty, no users present.")
+    // GET ALL users, one keyset page at a time
+    @Operation(summary = "Get all users", description = "Returns a page of user profiles ordered by id. "
+            + "When more profiles exist, the X-Next-Cursor response header holds the cursor for the next page. "
+            + "Served as JSON, CBOR or Smile following the Accept header, and gzip-compressed above the configured "
+            + "size when the client accepts it. "
+            + "The ETag changes on any write to the table; send it back in If-None-Match to get a bodiless 304.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "User(s) found. If empty, no users present."),
+            @ApiResponse(responseCode = "304", description = "No user changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
     @GetMapping("/users/")
-    public ResponseEntity<?> getAllUserProfiles() {
+    public ResponseEntity<?> getAllUserProfiles(
+            @Parameter(description = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by the server's maximum", example = "50")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "ETag from an earlier response for this page")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            return userProfileService.getAllUsers(cursor, limit, ifNoneMatch, UserProfileFormat.negotiate(accept));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // GET search filters users by any combination of email, city, state and zip, one keyset page at a time
+    @Operation(summary = "Search users", description = "Returns a page of user profiles matching every given filter, "
+            + "ordered by id. When more matches exist, the X-Next-Cursor response header holds the cursor for the next page.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching users, possibly none"),
+            @ApiResponse(responseCode = "400", description = "No filter given, or invalid cursor or page size")
+    })
+    @GetMapping("/users/_search")
+    public ResponseEntity<?> searchUserProfiles(
+            @Parameter(description = "Exact email address", example = "alpha@example.com")
+            @RequestParam(required = false) String emailAddress,
+            @Parameter(description = "Exact city", example = "Chicago")
+            @RequestParam(required = false) String city,
+            @Parameter(description = "State abbreviation", example = "IL")
+            @RequestParam(required = false) String state,
+            @Parameter(description = "Exact zip code", example = "60601")
+            @RequestParam(required = false) String zipCode,
+            @Parameter(description = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by the server's maximum", example = "50")
+            @RequestParam(required = false) Integer limit) {
         try {
-            return userProfileService.getAllUsers();
+            return userProfileService.searchUsers(new UserProfileSearch(emailAddress, city, state, zipCode), cursor, limit);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
     }
 
+    // GET typeahead returns usernames starting with a prefix, served from memory
+    @Operation(summary = "Username typeahead", description = "Returns usernames starting with the prefix, ignoring case, "
+            + "in sorted order. Served from an in-memory index, so it is cheap enough to call on every keystroke.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching usernames, possibly none"),
+            @ApiResponse(responseCode = "400", description = "Blank prefix or invalid limit")
+    })
+    @GetMapping("/users/_typeahead")
+    public ResponseEntity<List<String>> findUsernamesByPrefix(
+            @Parameter(description = "Start of the username", example = "alp")
+            @RequestParam(required = false) String prefix,
+            @Parameter(description = "Maximum matches, capped by the server's maximum", example = "10")
+            @RequestParam(required = false) Integer limit) {
+        return userProfileService.findUsernamesByPrefix(prefix, limit);
+    }
+
+    // GET aggregates returns user counts by state and zip3, served from memory
+    @Operation(summary = "User counts by location", description = "Returns the number of users per state and per "
+            + "zip3 (first three digits of the zip code). Served from running counts kept in memory, so the cost "
+            + "depends on the number of locations, not the number of users.")
+    @ApiResponse(responseCode = "200", description = "Counts by state and zip3")
+    @GetMapping("/users/_aggregates")
+    public ResponseEntity<UserProfileAggregates> getUserAggregates() {
+        return userProfileService.getAggregates();
+    }
+
+    // GET export streams every user as one JSON object per line
+    @Operation(
+            summary = "Export all users",
+            description = "Streams every user profile as newline-delimited JSON, ordered by id, "
+                    + "gzip-compressed when the client accepts it"
+    )
+    @ApiResponse(responseCode = "200", description = "Export stream started")
+    @GetMapping("/users/_export")
+    public ResponseEntity<StreamingResponseBody> exportUserProfiles() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userProfileExportService::exportUserProfiles);
+    }
+
     // POST route creates a new user profile
     @Operation(
             summary = "Create a new user",
@@ -64,30 +184,84 @@ public class UserProfileController {
             @ApiResponse(responseCode = "400", description = "Missing or invalid required fields")
     })
     @PostMapping("/users")
-    public ResponseEntity<String> createUserProfile(@RequestBody Map<String, String> request) {
+    public ResponseEntity<String> createUserProfile(@RequestBody UserProfileCreateRequest request) {
         try {
-            UserProfileValidator.validateCreateRequest(request);
+            timings.run(UserProfileTimings.Operation.CREATE, Phase.VALIDATION,
+                    () -> UserProfileValidator.validateCreateRequest(request));
             return userProfileService.createUserProfile(request);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
     }
 
-    //PATCH route allows updating a single user profile value
+    // POST bulk route creates many user profiles in one batched transaction
+    @Operation(
+            summary = "Create users in bulk",
+            description = "Creates every valid profile in the array in one batched insert. Returns one result per item; "
+                    + "duplicate or invalid items are reported without failing the rest."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-item results, in request order"),
+            @ApiResponse(responseCode = "400", description = "Too many items in one request")
+    })
+    @PostMapping("/users/_bulk")
+    public ResponseEntity<?> createUserProfiles(@RequestBody List<UserProfileCreateRequest> request) {
+        return userProfileBulkService.createUserProfiles(request);
+    }
+
+    // POST import route starts a background CSV import job
+    @Operation(
+            summary = "Import users from CSV",
+            description = "Starts a background import of a CSV file whose header names the six profile fields. "
+                    + "Poll the returned Location for progress."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Import job started"),
+            @ApiResponse(responseCode = "400", description = "Empty file or missing header columns")
+    })
+    @PostMapping(value = "/users/_import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobStatus> importUserProfiles(@RequestParam("file") MultipartFile file) throws IOException {
+        ImportJobStatus job = userProfileImportService.startImport(file);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    // GET import job status
+    @Operation(summary = "Get import job status", description = "Returns progress, throughput and rejected rows for an import job")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job found"),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired")
+    })
+    @GetMapping("/users/_import/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(userProfileImportService.getImportStatus(jobId));
+    }
+
+    //PATCH route updates one field, or several fields at once from a JSON Patch array
     @Operation(
             summary = "Update user fields",
-            description = "Updates one or more fields in the user profile using a PATCH operation"
+            description = "Updates fields in the user profile. Send one replace operation as an object, or a JSON Patch "
+                    + "array of replace operations to apply them all in one transaction. Add test operations to "
+                    + "apply the patch only while those fields still hold the given values."
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Field updated successfully"),
+            @ApiResponse(responseCode = "200", description = "Field(s) updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid field or value"),
-            @ApiResponse(responseCode = "404", description = "User not found")
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "A test operation failed, or the profile kept changing")
     })
     @PatchMapping("/users/{username}")
-    public ResponseEntity<?> updateUserProfile(@PathVariable String username, @RequestBody Map<String,String> request) {
+    public ResponseEntity<?> updateUserProfile(@PathVariable String username, @RequestBody UserProfilePatch request) {
         try {
-            UserProfileValidator.validatePatchRequest(request);
-            return userProfileService.updateUserProfile(username, request);
+            List<UserProfilePatchOperation> operations = request.operations();
+            timings.run(UserProfileTimings.Operation.UPDATE, Phase.VALIDATION, () -> {
+                if (operations.isEmpty()) {
+                    throw new InvalidUpdateException("Patch must contain at least one operation.");
+                }
+                operations.forEach(UserProfileValidator::validatePatchRequest);
+            });
+            return userProfileService.updateUserProfile(username, operations);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
@@ -106,7 +280,8 @@ public class UserProfileController {
     @DeleteMapping("/users/{username}")
     public ResponseEntity<?> deleteUserProfile(@PathVariable String username) {
         try {
-            UserProfileValidator.validateUsername(username);
+            timings.run(UserProfileTimings.Operation.DELETE, Phase.VALIDATION,
+                    () -> UserProfileValidator.validateUsername(username));
             return userProfileService.deleteUserProfile(username);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
@@ -1,5 +1,6 @@
 package com.example.DemoApp.domain;
 
+import com.example.DemoApp.service.UserProfileEntityListener;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -8,6 +9,7 @@ import lombok.*;
 @Schema(description = "Represents a user profile stored in the database")
 @Table(name = "user_profile")
 @Entity
+@EntityListeners(UserProfileEntityListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -16,7 +18,8 @@ public class UserProfile {
 
     @Schema(description = "Unique identifier for the user", example = "1")
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_profile_seq")
+    @SequenceGenerator(name = "user_profile_seq", sequenceName = "user_profile_seq", allocationSize = 50)
     private Long id;
 
     @Schema(description = "Username for login or display", example = "TestUser1")
@@ -42,4 +45,37 @@ public class UserProfile {
     @Schema(description = "Postal zip code", example = "12345")
     @Column(nullable = false)
     private String zipCode;
+
+    @Schema(description = "Incremented on every change; part of the profile's ETag", example = "0",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // What the row held when this entity was last loaded or written, so the entity listener can tell what
+    // an update changed. Initialized and final, so it stays out of the constructor and builder.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Persisted persisted = new Persisted();
+
+    public void markPersisted() {
+        persisted.username = username;
+        persisted.location = new UserProfileLocation(state, zipCode);
+    }
+
+    // Null until the entity has been loaded or written
+    public String persistedUsername() {
+        return persisted.username;
+    }
+
+    public UserProfileLocation persistedLocation() {
+        return persisted.location;
+    }
+
+    private static final class Persisted {
+        private String username;
+        private UserProfileLocation location;
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.DemoApp.domain;
+
+/**
+ * The state and zip code of one user, as returned by the repository's update and delete statements so
+ * the location counts can move the user out of the right buckets.
+ */
+public record UserProfileLocation(String state, String zipCode) {
+
+    // First three digits of the zip code, which identify a sectional center facility
+    public String zip3() {
+        return zip3(zipCode);
+    }
+
+    public static String zip3(String zipCode) {
+        return zipCode.length() <= 3 ? zipCode : zipCode.substring(0, 3);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.DemoApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item in a bulk create request. index is the item's position in the request array.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkCreateResult(int index, String username, Status status, Long id, String message) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public static BulkCreateResult created(int index, String username, Long id) {
+        return new BulkCreateResult(index, username, Status.CREATED, id, null);
+    }
+
+    public static BulkCreateResult duplicate(int index, String username) {
+        return new BulkCreateResult(index, username, Status.DUPLICATE, null,
+                "That user already exists. Try a different username.");
+    }
+
+    public static BulkCreateResult invalid(int index, String username, String message) {
+        return new BulkCreateResult(index, username, Status.INVALID, null, message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.DemoApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of a CSV import job. progressPercent is the share of the uploaded file consumed so far;
+ * sampleErrors holds the first few rejected rows.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportJobStatus(
+        String id,
+        String state,
+        long rowsRead,
+        long rowsInserted,
+        long rowsRejected,
+        double progressPercent,
+        double rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        List<String> sampleErrors,
+        String failure
+) {
+}
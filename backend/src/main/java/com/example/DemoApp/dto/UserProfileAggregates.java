@@ -0,0 +1,13 @@
+package com.example.DemoApp.dto;
+
+import java.util.SortedMap;
+
+/**
+ * User counts by state and by the first three digits of the zip code. Buckets with no users are left out.
+ */
+public record UserProfileAggregates(
+        long total,
+        SortedMap<String, Long> byState,
+        SortedMap<String, Long> byZip3
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.DemoApp.dto;
+
+import com.example.DemoApp.domain.UserProfile;
+
+/**
+ * Body of a create request, bound by Jackson straight into the six fields. A field left out of the JSON
+ * and one sent as null both arrive as null.
+ */
+public record UserProfileCreateRequest(
+        String username,
+        String emailAddress,
+        String streetAddress,
+        String city,
+        String state,
+        String zipCode
+) {
+
+    public UserProfile toUserProfile() {
+        return new UserProfile(null, username, emailAddress, streetAddress, city, state, zipCode, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.DemoApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.List;
+
+/**
+ * Body of a PATCH request: a JSON Patch array, or a single operation object, which binds as a list of one.
+ */
+public record UserProfilePatch(List<UserProfilePatchOperation> operations) {
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public UserProfilePatch(
+            @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<UserProfilePatchOperation> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.DemoApp.dto;
+
+/**
+ * One JSON Patch operation on a profile field: "replace", or "test", which makes the whole patch apply
+ * only while the field still holds the given value.
+ */
+public record UserProfilePatchOperation(String op, String path, String value) {
+
+    public static UserProfilePatchOperation replace(String path, String value) {
+        return new UserProfilePatchOperation("replace", path, value);
+    }
+
+    public static UserProfilePatchOperation test(String path, String value) {
+        return new UserProfilePatchOperation("test", path, value);
+    }
+}
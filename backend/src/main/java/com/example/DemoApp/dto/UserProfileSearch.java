@@ -0,0 +1,22 @@
+package com.example.DemoApp.dto;
+
+/**
+ * Filters for the user search endpoint. Blank fields are treated as absent; the rest must all match exactly.
+ */
+public record UserProfileSearch(String emailAddress, String city, String state, String zipCode) {
+
+    public UserProfileSearch {
+        emailAddress = blankToNull(emailAddress);
+        city = blankToNull(city);
+        state = blankToNull(state);
+        zipCode = blankToNull(zipCode);
+    }
+
+    public boolean isEmpty() {
+        return emailAddress == null && city == null && state == null && zipCode == null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.DemoApp.dto;
+
+import com.example.DemoApp.domain.UserProfile;
+
+/**
+ * Read-only copy of a user profile, built by the repository's constructor-expression queries. It never
+ * enters the persistence context, so a read skips Hibernate's entity instantiation, dirty-checking snapshot
+ * and flush bookkeeping. Components follow the entity's field order, so the JSON is identical.
+ */
+public record UserProfileView(
+        Long id,
+        String username,
+        String emailAddress,
+        String streetAddress,
+        String city,
+        String state,
+        String zipCode,
+        Long version
+) {
+
+    public static UserProfileView of(UserProfile user) {
+        return new UserProfileView(user.getId(), user.getUsername(), user.getEmailAddress(), user.getStreetAddress(),
+                user.getCity(), user.getState(), user.getZipCode(), user.getVersion());
+    }
+}
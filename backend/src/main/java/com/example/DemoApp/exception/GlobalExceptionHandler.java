@@ -31,5 +31,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT)
                 .body("That user already exists. Try a different username.");
     }
-}
 
+    @ExceptionHandler(UserUpdateConflictException.class)
+    public ResponseEntity<String> handleUserUpdateConflict(UserUpdateConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<String> handleImportJobNotFound(ImportJobNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("That import job does not exist or has expired.");
+    }
+}
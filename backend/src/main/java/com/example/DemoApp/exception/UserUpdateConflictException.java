@@ -0,0 +1,7 @@
+package com.example.DemoApp.exception;
+
+public class UserUpdateConflictException extends RuntimeException {
+    public UserUpdateConflictException(String message) {
+        super(message);
+    }
+}
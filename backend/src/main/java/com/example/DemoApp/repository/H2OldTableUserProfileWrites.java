@@ -0,0 +1,101 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * H2 only. Uses H2's OLD TABLE data change delta table, which turns an UPDATE or DELETE into a query over
+ * the rows as they were before the change, so one round trip both writes the row and returns its previous
+ * location. {@link UserProfileRepositoryCustomImpl} picks this only when the dialect is H2.
+ */
+final class H2OldTableUserProfileWrites implements UserProfileRepositoryCustom {
+
+    private static final String UPDATE_RETURNING_PREVIOUS_LOCATION = """
+            select state, zip_code from old table (
+                update user_profile set
+                    username = coalesce(:newUsername, username),
+                    email_address = coalesce(:emailAddress, email_address),
+                    street_address = coalesce(:streetAddress, street_address),
+                    city = coalesce(:city, city),
+                    state = coalesce(:state, state),
+                    zip_code = coalesce(:zipCode, zip_code),
+                    version = version + 1
+                where username = :username%s)""";
+
+    private static final String UPDATE = UPDATE_RETURNING_PREVIOUS_LOCATION.formatted("");
+    private static final String UPDATE_IF_VERSION_MATCHES =
+            UPDATE_RETURNING_PREVIOUS_LOCATION.formatted(" and version = :expectedVersion");
+
+    private static final String DELETE_RETURNING_LOCATION = """
+            select state, zip_code from old table (
+                delete from user_profile where username = :username)""";
+
+    private final EntityManager entityManager;
+
+    H2OldTableUserProfileWrites(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<UserProfileLocation> updateByUsername(String username, String newUsername, String emailAddress,
+                                                          String streetAddress, String city, String state,
+                                                          String zipCode) {
+        return execute(bindChanges(nativeQuery(UPDATE), username, newUsername, emailAddress, streetAddress, city,
+                state, zipCode));
+    }
+
+    @Override
+    public Optional<UserProfileLocation> updateByUsernameAndVersion(String username, long expectedVersion,
+                                                                    String newUsername, String emailAddress,
+                                                                    String streetAddress, String city, String state,
+                                                                    String zipCode) {
+        return execute(bindChanges(nativeQuery(UPDATE_IF_VERSION_MATCHES), username, newUsername, emailAddress,
+                streetAddress, city, state, zipCode)
+                .setParameter("expectedVersion", expectedVersion, StandardBasicTypes.LONG));
+    }
+
+    // Typed binding, since a null would otherwise reach COALESCE with no SQL type
+    private static NativeQuery<Object[]> bindChanges(NativeQuery<Object[]> query, String username, String newUsername,
+                                                     String emailAddress, String streetAddress, String city,
+                                                     String state, String zipCode) {
+        return query
+                .setParameter("username", username, StandardBasicTypes.STRING)
+                .setParameter("newUsername", newUsername, StandardBasicTypes.STRING)
+                .setParameter("emailAddress", emailAddress, StandardBasicTypes.STRING)
+                .setParameter("streetAddress", streetAddress, StandardBasicTypes.STRING)
+                .setParameter("city", city, StandardBasicTypes.STRING)
+                .setParameter("state", state, StandardBasicTypes.STRING)
+                .setParameter("zipCode", zipCode, StandardBasicTypes.STRING);
+    }
+
+    @Override
+    public Optional<UserProfileLocation> deleteByUsername(String username) {
+        return execute(nativeQuery(DELETE_RETURNING_LOCATION).setParameter("username", username));
+    }
+
+    @SuppressWarnings("unchecked")
+    private NativeQuery<Object[]> nativeQuery(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserProfile.class);
+    }
+
+    // Flush pending entity changes first and detach everything after, as @Modifying queries do, so no
+    // managed entity keeps showing the row as it was
+    private Optional<UserProfileLocation> execute(NativeQuery<Object[]> query) {
+        entityManager.flush();
+        List<Object[]> rows = query.getResultList();
+        entityManager.clear();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(new UserProfileLocation((String) row[0], (String) row[1]));
+    }
+}
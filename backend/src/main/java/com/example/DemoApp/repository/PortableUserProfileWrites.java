@@ -0,0 +1,122 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfileLocation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JPQL, so it runs on any database. An update reads the row's location and version, then writes
+ * only while the row is still at that version; if another transaction got there first it fails with
+ * a ConcurrencyFailureException rather than retrying here, since under snapshot isolation a second read
+ * in the same transaction would only see the same old version. The caller retries in a new transaction.
+ * A delete reads the location under a row lock and then deletes the row. Two statements instead of the
+ * H2 path's one; must run inside a transaction.
+ */
+public final class PortableUserProfileWrites implements UserProfileRepositoryCustom {
+
+    private static final String SELECT_LOCATION_AND_VERSION =
+            "select u.state, u.zipCode, u.version from UserProfile u where u.username = :username";
+
+    private static final String UPDATE_IF_VERSION_MATCHES = """
+            update UserProfile u set
+                u.username = coalesce(:newUsername, u.username),
+                u.emailAddress = coalesce(:emailAddress, u.emailAddress),
+                u.streetAddress = coalesce(:streetAddress, u.streetAddress),
+                u.city = coalesce(:city, u.city),
+                u.state = coalesce(:state, u.state),
+                u.zipCode = coalesce(:zipCode, u.zipCode),
+                u.version = u.version + 1
+            where u.username = :username and u.version = :version""";
+
+    private static final String DELETE = "delete from UserProfile u where u.username = :username";
+
+    private final EntityManager entityManager;
+
+    public PortableUserProfileWrites(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<UserProfileLocation> updateByUsername(String username, String newUsername, String emailAddress,
+                                                          String streetAddress, String city, String state,
+                                                          String zipCode) {
+        return update(username, null, newUsername, emailAddress, streetAddress, city, state, zipCode);
+    }
+
+    @Override
+    public Optional<UserProfileLocation> updateByUsernameAndVersion(String username, long expectedVersion,
+                                                                    String newUsername, String emailAddress,
+                                                                    String streetAddress, String city, String state,
+                                                                    String zipCode) {
+        return update(username, expectedVersion, newUsername, emailAddress, streetAddress, city, state, zipCode);
+    }
+
+    // The row lock keeps the location read and the DELETE about the same row version
+    @Override
+    public Optional<UserProfileLocation> deleteByUsername(String username) {
+        entityManager.flush();
+        try {
+            Optional<Object[]> current = current(username, LockModeType.PESSIMISTIC_WRITE);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            entityManager.createQuery(DELETE).setParameter("username", username).executeUpdate();
+            return Optional.of(locationOf(current.get()));
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    // A null expectedVersion writes over whatever version it reads; one with a value gives up on a mismatch
+    private Optional<UserProfileLocation> update(String username, Long expectedVersion, String newUsername,
+                                                 String emailAddress, String streetAddress, String city,
+                                                 String state, String zipCode) {
+        entityManager.flush();
+        try {
+            Optional<Object[]> current = current(username, LockModeType.NONE);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            long version = (Long) current.get()[2];
+            if (expectedVersion != null && version != expectedVersion) {
+                return Optional.empty();
+            }
+            int updated = entityManager.createQuery(UPDATE_IF_VERSION_MATCHES)
+                    .setParameter("username", username)
+                    .setParameter("version", version)
+                    .setParameter("newUsername", newUsername)
+                    .setParameter("emailAddress", emailAddress)
+                    .setParameter("streetAddress", streetAddress)
+                    .setParameter("city", city)
+                    .setParameter("state", state)
+                    .setParameter("zipCode", zipCode)
+                    .executeUpdate();
+            if (updated == 0) {
+                if (expectedVersion != null) {
+                    return Optional.empty();
+                }
+                throw new OptimisticLockingFailureException(
+                        "User profile '" + username + "' changed between reading and updating it");
+            }
+            return Optional.of(locationOf(current.get()));
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    private Optional<Object[]> current(String username, LockModeType lockMode) {
+        List<Object[]> rows = entityManager.createQuery(SELECT_LOCATION_AND_VERSION, Object[].class)
+                .setParameter("username", username)
+                .setLockMode(lockMode)
+                .getResultList();
+        return rows.stream().findFirst();
+    }
+
+    private static UserProfileLocation locationOf(Object[] row) {
+        return new UserProfileLocation((String) row[0], (String) row[1]);
+    }
+}
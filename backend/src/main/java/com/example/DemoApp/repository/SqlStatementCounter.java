@@ -0,0 +1,33 @@
+package com.example.DemoApp.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that counts the statements prepared on the current thread between
+ * {@link #begin()} and {@link #end()}. It leaves the SQL untouched. A JDBC batch is prepared once, so
+ * the count is close to the number of database round trips.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = current.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void begin() {
+        current.set(new int[1]);
+    }
+
+    // Returns the statements counted since begin(), or 0 if counting was never started on this thread
+    public int end() {
+        int[] count = current.get();
+        current.remove();
+        return count == null ? 0 : count[0];
+    }
+}
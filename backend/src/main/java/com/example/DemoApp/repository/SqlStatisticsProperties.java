@@ -0,0 +1,17 @@
+package com.example.DemoApp.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Opt-in SQL diagnostics. When enabled, every /api request records how many statements it prepared, and
+ * Hibernate logs any statement slower than the threshold on the org.hibernate.SQL_SLOW logger.
+ */
+@ConfigurationProperties(prefix = "demo.sql-statistics")
+public record SqlStatisticsProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("200ms") Duration slowQueryThreshold
+) {
+}
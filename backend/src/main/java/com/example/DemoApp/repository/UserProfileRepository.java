@@ -1,10 +1,64 @@
 package com.example.DemoApp.repository;
 
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface UserProfileRepository extends JpaRepository<UserProfile, Long>, JpaSpecificationExecutor<UserProfile>,
+        UserProfileRepositoryCustom, UserProfileViewSearch {
+    int EXPORT_FETCH_SIZE = 500;
 
-public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     Optional<UserProfile> findByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    // Read paths select straight into records, so nothing is attached to the persistence context
+    @Query("""
+            select new com.example.DemoApp.dto.UserProfileView(
+                u.id, u.username, u.emailAddress, u.streetAddress, u.city, u.state, u.zipCode, u.version)
+            from UserProfile u where u.username = :username""")
+    Optional<UserProfileView> findViewByUsername(@Param("username") String username);
+
+    // Keyset page: seeks past the last id seen instead of using OFFSET, so every page costs the same
+    @Query("""
+            select new com.example.DemoApp.dto.UserProfileView(
+                u.id, u.username, u.emailAddress, u.streetAddress, u.city, u.state, u.zipCode, u.version)
+            from UserProfile u where u.id > :id order by u.id""")
+    List<UserProfileView> findViewsByIdGreaterThan(@Param("id") long id, Limit limit);
+
+    // Scrolls the whole table through a JDBC cursor; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from UserProfile u order by u.id")
+    Stream<UserProfile> streamAllOrderById();
+
+    // Feeds the username filter at startup without materializing entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select u.username from UserProfile u")
+    Stream<String> streamAllUsernames();
+
+    @Query("select u.username from UserProfile u where u.username in :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // One [key, count] row per group. These scan every row, so they only seed and reconcile the in-memory counts
+    @Query("select u.state, count(u) from UserProfile u group by u.state")
+    List<Object[]> countByState();
+
+    @Query("select substring(u.zipCode, 1, 3), count(u) from UserProfile u group by substring(u.zipCode, 1, 3)")
+    List<Object[]> countByZip3();
 }
@@ -0,0 +1,34 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfileLocation;
+
+import java.util.Optional;
+
+/**
+ * Writes that also report the row's location before the change, so callers can keep derived counts exact
+ * without reading the row themselves. None of them loads the entity; on H2 each is a single statement.
+ */
+public interface UserProfileRepositoryCustom {
+
+    /**
+     * Updates the row without loading the entity; a null argument leaves that column unchanged and
+     * the version is always bumped.
+     * Returns the state and zip code the user had before the update, or empty when no such user exists.
+     */
+    Optional<UserProfileLocation> updateByUsername(String username, String newUsername, String emailAddress,
+                                                   String streetAddress, String city, String state, String zipCode);
+
+    /**
+     * Same as {@link #updateByUsername}, but only while the row is still at expectedVersion. Returns empty
+     * both when no such user exists and when another write has already moved the version on.
+     */
+    Optional<UserProfileLocation> updateByUsernameAndVersion(String username, long expectedVersion, String newUsername,
+                                                             String emailAddress, String streetAddress, String city,
+                                                             String state, String zipCode);
+
+    /**
+     * Deletes the row without loading the entity. Returns the deleted user's state and zip code, or
+     * empty when no such user exists.
+     */
+    Optional<UserProfileLocation> deleteByUsername(String username);
+}
@@ -0,0 +1,54 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfileLocation;
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Picks the writes for the database in use: on H2, {@link H2OldTableUserProfileWrites} does each write
+ * and returns the previous location in one statement; anywhere else {@link PortableUserProfileWrites}
+ * reads the location first and writes only while the row is unchanged.
+ */
+class UserProfileRepositoryCustomImpl implements UserProfileRepositoryCustom {
+
+    private final UserProfileRepositoryCustom writes;
+
+    UserProfileRepositoryCustomImpl(EntityManager entityManager) {
+        this.writes = isH2(entityManager)
+                ? new H2OldTableUserProfileWrites(entityManager)
+                : new PortableUserProfileWrites(entityManager);
+    }
+
+    private static boolean isH2(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserProfileLocation> updateByUsername(String username, String newUsername, String emailAddress,
+                                                          String streetAddress, String city, String state,
+                                                          String zipCode) {
+        return writes.updateByUsername(username, newUsername, emailAddress, streetAddress, city, state, zipCode);
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserProfileLocation> updateByUsernameAndVersion(String username, long expectedVersion,
+                                                                    String newUsername, String emailAddress,
+                                                                    String streetAddress, String city, String state,
+                                                                    String zipCode) {
+        return writes.updateByUsernameAndVersion(username, expectedVersion, newUsername, emailAddress, streetAddress,
+                city, state, zipCode);
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserProfileLocation> deleteByUsername(String username) {
+        return writes.deleteByUsername(username);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileSearch;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds search queries that only mention the filters actually given. Optional-parameter tricks such as
+ * "(:city is null or u.city = :city)" would stop the database from using the secondary indexes.
+ */
+public final class UserProfileSpecifications {
+
+    private UserProfileSpecifications() {
+    }
+
+    /**
+     * Every non-null filter in the search, plus the keyset condition id > afterId.
+     */
+    public static Specification<UserProfile> matching(UserProfileSearch search, long afterId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+            if (search.emailAddress() != null) {
+                predicates.add(cb.equal(root.get("emailAddress"), search.emailAddress()));
+            }
+            if (search.city() != null) {
+                predicates.add(cb.equal(root.get("city"), search.city()));
+            }
+            if (search.state() != null) {
+                predicates.add(cb.equal(root.get("state"), search.state()));
+            }
+            if (search.zipCode() != null) {
+                predicates.add(cb.equal(root.get("zipCode"), search.zipCode()));
+            }
+            predicates.add(cb.greaterThan(root.get("id"), afterId));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Specification queries that select straight into {@link UserProfileView}. The fluent findBy API can only
+ * project by loading each entity and copying it, which attaches every row to the persistence context.
+ */
+public interface UserProfileViewSearch {
+
+    /**
+     * The users matching the specification, ordered by id and cut off at the limit.
+     */
+    List<UserProfileView> findViews(Specification<UserProfile> specification, Limit limit);
+}
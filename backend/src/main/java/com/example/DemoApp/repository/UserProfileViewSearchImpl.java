@@ -0,0 +1,50 @@
+package com.example.DemoApp.repository;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Criteria version of the repository's "select new UserProfileView(...)" queries, so any specification
+ * can be read without instantiating entities.
+ */
+class UserProfileViewSearchImpl implements UserProfileViewSearch {
+
+    private final EntityManager entityManager;
+
+    UserProfileViewSearchImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserProfileView> findViews(Specification<UserProfile> specification, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserProfileView> query = cb.createQuery(UserProfileView.class);
+        Root<UserProfile> root = query.from(UserProfile.class);
+        query.select(cb.construct(UserProfileView.class, root.get("id"), root.get("username"),
+                root.get("emailAddress"), root.get("streetAddress"), root.get("city"), root.get("state"),
+                root.get("zipCode"), root.get("version")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        TypedQuery<UserProfileView> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.repository.UserProfileRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inserts many user profiles in one transaction using JDBC batching. Usernames that already exist, or
+ * repeat earlier in the same batch, are skipped rather than failing the whole batch.
+ */
+@Component
+public class UserProfileBatchWriter {
+
+    // Keeps the IN list of the duplicate check well under database parameter limits
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final UserProfileRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final UserProfileUsernameFilter usernameFilter;
+    private final int batchSize;
+
+    public UserProfileBatchWriter(UserProfileRepository repository, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager, UserProfileUsernameFilter usernameFilter,
+                                  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usernameFilter = usernameFilter;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Inserts the given profiles and returns their generated ids in the same order. An entry is null when
+     * the profile was skipped because its username is already taken.
+     */
+    public List<Long> insertAll(List<UserProfile> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transactionTemplate.execute(status -> insertBatched(users));
+        } catch (DataIntegrityViolationException dive) {
+            // A concurrent insert claimed a username between the duplicate check and the flush. Fall back to
+            // one transaction per row so only the conflicting rows are rejected. The rolled-back batch left an
+            // id and version on each entity; clear both so the retry persists instead of merging.
+            List<Long> ids = new ArrayList<>(users.size());
+            for (UserProfile user : users) {
+                user.setId(null);
+                user.setVersion(null);
+                ids.add(insertOne(user));
+            }
+            return ids;
+        }
+    }
+
+    private List<Long> insertBatched(List<UserProfile> users) {
+        Set<String> taken = findExistingUsernames(users);
+        boolean[] skipped = new boolean[users.size()];
+        List<UserProfile> pending = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < users.size(); i++) {
+            UserProfile user = users.get(i);
+            if (!taken.add(user.getUsername())) {
+                skipped[i] = true;
+                continue;
+            }
+            pending.add(user);
+            if (pending.size() == batchSize) {
+                flushBatch(pending);
+            }
+        }
+        flushBatch(pending);
+
+        // Ids come from the pooled sequence at persist time, so they are set before the commit
+        List<Long> ids = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            ids.add(skipped[i] ? null : users.get(i).getId());
+        }
+        return ids;
+    }
+
+    private void flushBatch(List<UserProfile> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        repository.saveAll(pending);
+        repository.flush();
+        // Detach the flushed rows so a large import does not keep every entity in the persistence context
+        entityManager.clear();
+        pending.clear();
+    }
+
+    private Long insertOne(UserProfile user) {
+        try {
+            return transactionTemplate.execute(status -> repository.saveAndFlush(user).getId());
+        } catch (DataIntegrityViolationException dive) {
+            return null;
+        }
+    }
+
+    private Set<String> findExistingUsernames(List<UserProfile> users) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < users.size(); from += LOOKUP_CHUNK_SIZE) {
+            // Definite misses from the username filter cannot exist, so only possible matches are looked up
+            List<String> usernames = users.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, users.size())).stream()
+                    .map(UserProfile::getUsername)
+                    .filter(usernameFilter::mightContain)
+                    .toList();
+            if (!usernames.isEmpty()) {
+                existing.addAll(repository.findExistingUsernames(usernames));
+            }
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits for bulk user creation. Larger imports should be split across several requests.
+ */
+@ConfigurationProperties(prefix = "demo.bulk")
+public record UserProfileBulkProperties(
+        @DefaultValue("10000") int maxItems
+) {
+}
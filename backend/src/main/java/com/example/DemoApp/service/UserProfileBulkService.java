@@ -0,0 +1,64 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.BulkCreateResult;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.exception.InvalidUserInputException;
+import com.example.DemoApp.validation.UserProfileValidator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class UserProfileBulkService {
+
+    private final UserProfileBatchWriter batchWriter;
+    private final UserProfileBulkProperties bulkProperties;
+
+    public UserProfileBulkService(UserProfileBatchWriter batchWriter, UserProfileBulkProperties bulkProperties) {
+        this.batchWriter = batchWriter;
+        this.bulkProperties = bulkProperties;
+    }
+
+    public ResponseEntity<?> createUserProfiles(List<UserProfileCreateRequest> requests) {
+        if (requests.size() > bulkProperties.maxItems()) {
+            throw new InvalidUserInputException("A bulk request may contain at most " + bulkProperties.maxItems() + " users.");
+        }
+
+        // Invalid items are reported individually instead of rejecting the whole request
+        BulkCreateResult[] results = new BulkCreateResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<UserProfile> validUsers = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            UserProfileCreateRequest request = requests.get(i);
+            try {
+                UserProfileValidator.validateCreateRequest(request);
+            } catch (IllegalArgumentException | InvalidUserInputException ex) {
+                results[i] = BulkCreateResult.invalid(i, request.username(), ex.getMessage());
+                continue;
+            }
+            validIndexes.add(i);
+            validUsers.add(request.toUserProfile());
+        }
+
+        try {
+            List<Long> ids = batchWriter.insertAll(validUsers);
+            for (int j = 0; j < validUsers.size(); j++) {
+                int index = validIndexes.get(j);
+                String username = validUsers.get(j).getUsername();
+                Long id = ids.get(j);
+                results[index] = id == null
+                        ? BulkCreateResult.duplicate(index, username)
+                        : BulkCreateResult.created(index, username, id);
+            }
+            return ResponseEntity.ok(List.of(results));
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An error occurred while creating user profiles. Double-check your request.");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.dto.UserProfileView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.ETag;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of user profiles keyed by username. Values hold the encoded bytes that get written
+ * straight to the response plus the profile's ETag, so a hit skips both the repository lookup and Jackson
+ * serialization, and a conditional GET can be answered from the tag alone. Missing users are never cached.
+ * <p>
+ * Each format is encoded the first time a client asks for it and kept alongside, so the caller can time
+ * serialization apart from the load.
+ * <p>
+ * Entries are futures, so a miss is single-flight: the first caller puts an incomplete future in the
+ * cache and runs the query on its own thread, and every concurrent caller for that username waits on the
+ * same future instead of issuing its own query. No lock is held while the query runs, and invalidating a
+ * username mid-load drops the in-flight future, so its possibly stale result is never cached.
+ */
+@Component
+public class UserProfileCache {
+
+    public static final String CACHE_NAME = "userProfiles";
+    public static final String COALESCED_METRIC = "user.profiles.cache.coalesced";
+
+    private final boolean enabled;
+    private final AsyncCache<String, CachedProfile> cache;
+    private final Counter coalesced;
+    private final Map<UserProfileFormat, ObjectWriter> writers = new EnumMap<>(UserProfileFormat.class);
+
+    public UserProfileCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, UserProfileCacheProperties properties) {
+        for (UserProfileFormat format : UserProfileFormat.values()) {
+            writers.put(format, format.mapper(objectMapper).writer());
+        }
+        this.enabled = properties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+        this.coalesced = Counter.builder(COALESCED_METRIC)
+                .description("Profile lookups that joined another request's in-flight load instead of querying")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached profile for the username, loading it with the given function on a miss.
+     * Returns null when the loader finds no user.
+     */
+    public CachedProfile get(String username, Function<String, UserProfileView> loader) {
+        if (!enabled) {
+            UserProfileView user = loader.apply(username);
+            return user == null ? null : new CachedProfile(user);
+        }
+        CompletableFuture<CachedProfile> created = new CompletableFuture<>();
+        CompletableFuture<CachedProfile> flight = cache.get(username, (key, executor) -> created);
+        if (flight != created) {
+            if (!flight.isDone()) {
+                coalesced.increment();
+            }
+            return flight.join();
+        }
+        // This caller won the miss; a null or failed result is dropped from the cache by Caffeine
+        try {
+            UserProfileView user = loader.apply(username);
+            CachedProfile profile = user == null ? null : new CachedProfile(user);
+            created.complete(profile);
+            return profile;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    // Never loads or waits; lets a conditional GET be answered without touching the repository
+    public CachedProfile getIfPresent(String username) {
+        CompletableFuture<CachedProfile> profile = cache.getIfPresent(username);
+        return profile != null && profile.isDone() && !profile.isCompletedExceptionally() ? profile.join() : null;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.synchronous().invalidate(username);
+        }
+    }
+
+    /**
+     * Invalidates the usernames once the current transaction completes, or right away outside one.
+     * Dropping them at completion rather than at the write keeps a concurrent miss from caching the
+     * pre-commit row in between; a rollback only costs the next read a reload.
+     */
+    public void invalidateAfterCompletion(String... usernames) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (String username : usernames) {
+                invalidate(username);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (String username : usernames) {
+                    invalidate(username);
+                }
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    // Strong tag: the id tells apart a deleted and re-created user, the version any change to this one
+    public static ETag eTagOf(UserProfileView user, UserProfileFormat format) {
+        return new ETag(format.tag(user.id() + "-" + user.version()), false);
+    }
+
+    private byte[] serialize(UserProfileView user, UserProfileFormat format) {
+        try {
+            return writers.get(format).writeValueAsBytes(user);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public final class CachedProfile {
+
+        private final UserProfileView profile;
+        private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(UserProfileFormat.values().length);
+
+        private CachedProfile(UserProfileView profile) {
+            this.profile = profile;
+        }
+
+        // Two first requests for the same format may both encode it; either result is kept
+        public byte[] bytes(UserProfileFormat format) {
+            byte[] bytes = encoded.get(format.ordinal());
+            if (bytes == null) {
+                bytes = serialize(profile, format);
+                encoded.set(format.ordinal(), bytes);
+            }
+            return bytes;
+        }
+
+        public ETag eTag(UserProfileFormat format) {
+            return eTagOf(profile, format);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sizing for the pre-serialized user profile cache. Tune these against the cache.* metrics
+ * exposed on /actuator/metrics. With enabled=false every lookup goes to the repository: nothing is
+ * cached and concurrent misses are not coalesced either.
+ */
+@ConfigurationProperties(prefix = "demo.cache.user-profiles")
+public record UserProfileCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration ttl
+) {
+}
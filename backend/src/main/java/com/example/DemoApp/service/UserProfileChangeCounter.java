@@ -0,0 +1,44 @@
+package com.example.DemoApp.service;
+
+import org.springframework.http.ETag;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table-level change counter behind the ETag of user list pages. Every committed insert, update or delete
+ * bumps it, so an unchanged tag means no page can have changed and a conditional GET can be answered
+ * without querying.
+ * <p>
+ * The counter starts over on restart, so the tag also carries a random per-process epoch; a tag handed
+ * out by an earlier process never matches. The bump happens after commit, so a list read in between sees
+ * new rows under the old tag, which at worst costs the client one extra full response later.
+ */
+@Component
+public class UserProfileChangeCounter {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong changes = new AtomicLong();
+
+    // Weak, because the tag vouches for the rows rather than exact bytes, and servlet containers won't
+    // compress a response whose strong ETag would then describe different bytes
+    public ETag currentETag(UserProfileFormat format) {
+        return new ETag(format.tag(epoch + "-" + changes.get()), true);
+    }
+
+    public void recordChange() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changes.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changes.incrementAndGet();
+            }
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.exception.InvalidUserInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor for keyset pagination. Clients should treat the token as a black box; it only
+ * carries the id of the last profile on the previous page.
+ */
+public final class UserProfileCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserProfileCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) throws InvalidUserInputException {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidUserInputException("Invalid page cursor. Use the X-Next-Cursor value from a previous page.");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Keeps the in-memory username structures, location counts and change counter in step with every
+ * write that goes through JPA, so inserts from the bulk writer, the CSV import or anything else that
+ * saves entities directly are covered too. The repository's bulk updates and deletes bypass
+ * entity callbacks; the service handles those itself.
+ * <p>
+ * The {@link UserProfileUsernameFilter} is fed before the INSERT or UPDATE, so the name is in the filter
+ * even before a same-transaction query flushes it. The {@link UserProfileUsernameIndex},
+ * {@link UserProfileLocationCounts} and {@link UserProfileChangeCounter} defer their own changes until
+ * commit, and the {@link UserProfileCache} drops the username once the transaction completes, so a GET
+ * never serves a row that was re-imported, re-saved or deleted behind the service's back.
+ * <p>
+ * Created by Hibernate through Spring's bean container. Each is looked up lazily because JPA-only test
+ * slices have none of these beans.
+ */
+public class UserProfileEntityListener {
+
+    private final ObjectProvider<UserProfileUsernameFilter> usernameFilter;
+    private final ObjectProvider<UserProfileUsernameIndex> usernameIndex;
+    private final ObjectProvider<UserProfileLocationCounts> locationCounts;
+    private final ObjectProvider<UserProfileChangeCounter> changeCounter;
+    private final ObjectProvider<UserProfileCache> profileCache;
+
+    public UserProfileEntityListener(ObjectProvider<UserProfileUsernameFilter> usernameFilter,
+                                     ObjectProvider<UserProfileUsernameIndex> usernameIndex,
+                                     ObjectProvider<UserProfileLocationCounts> locationCounts,
+                                     ObjectProvider<UserProfileChangeCounter> changeCounter,
+                                     ObjectProvider<UserProfileCache> profileCache) {
+        this.usernameFilter = usernameFilter;
+        this.usernameIndex = usernameIndex;
+        this.locationCounts = locationCounts;
+        this.changeCounter = changeCounter;
+        this.profileCache = profileCache;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void beforeWrite(UserProfile user) {
+        usernameFilter.ifAvailable(filter -> filter.put(user.getUsername()));
+    }
+
+    @PostLoad
+    void afterLoad(UserProfile user) {
+        user.markPersisted();
+    }
+
+    @PostPersist
+    void afterInsert(UserProfile user) {
+        usernameIndex.ifAvailable(index -> index.add(user.getUsername()));
+        locationCounts.ifAvailable(counts -> counts.add(locationOf(user)));
+        changeCounter.ifAvailable(UserProfileChangeCounter::recordChange);
+        profileCache.ifAvailable(cache -> cache.invalidateAfterCompletion(user.getUsername()));
+        user.markPersisted();
+    }
+
+    // Compares against what was loaded, like the service's own updates do with the row's previous location
+    @PostUpdate
+    void afterUpdate(UserProfile user) {
+        String previousUsername = user.persistedUsername();
+        UserProfileLocation previousLocation = user.persistedLocation();
+        if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+            usernameIndex.ifAvailable(index -> index.rename(previousUsername, user.getUsername()));
+        }
+        if (previousLocation != null) {
+            locationCounts.ifAvailable(counts -> counts.move(previousLocation, locationOf(user)));
+        }
+        changeCounter.ifAvailable(UserProfileChangeCounter::recordChange);
+        profileCache.ifAvailable(cache -> cache.invalidateAfterCompletion(previousUsername, user.getUsername()));
+        user.markPersisted();
+    }
+
+    // The DELETE removes the row as it was last written, not any unflushed changes to the entity
+    @PostRemove
+    void afterRemove(UserProfile user) {
+        String username = user.persistedUsername() != null ? user.persistedUsername() : user.getUsername();
+        UserProfileLocation location = user.persistedLocation() != null ? user.persistedLocation() : locationOf(user);
+        usernameIndex.ifAvailable(index -> index.remove(username));
+        locationCounts.ifAvailable(counts -> counts.remove(location));
+        changeCounter.ifAvailable(UserProfileChangeCounter::recordChange);
+        profileCache.ifAvailable(cache -> cache.invalidateAfterCompletion(username));
+    }
+
+    private static UserProfileLocation locationOf(UserProfile user) {
+        return new UserProfileLocation(user.getState(), user.getZipCode());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams every user profile as newline-delimited JSON. Rows are read through a database cursor and
+ * detached as soon as they are written, so heap usage does not grow with the table.
+ */
+@Service
+public class UserProfileExportService {
+
+    private final UserProfileRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public UserProfileExportService(UserProfileRepository repository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Flushing is done once per fetch batch below rather than after every row
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportUserProfiles(OutputStream out) throws IOException {
+        try (Stream<UserProfile> profiles = repository.streamAllOrderById();
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<UserProfile> rows = profiles.iterator();
+            long written = 0;
+            while (rows.hasNext()) {
+                UserProfile user = rows.next();
+                rowWriter.writeValue(generator, user);
+                generator.writeRaw('\n');
+                entityManager.detach(user);
+
+                // Push the first row out right away, then one flush per fetch batch
+                if (++written == 1 || written % UserProfileRepository.EXPORT_FETCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.DemoApp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Wire formats a profile can be served in. The binary encodings carry the same fields as the JSON but
+ * skip quoting and number formatting, and Smile also back-references repeated field names, which adds up
+ * on list pages where every row repeats streetAddress and emailAddress.
+ */
+public enum UserProfileFormat {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+    CBOR(MediaType.APPLICATION_CBOR, CBORFactory::new),
+    SMILE(new MediaType("application", "x-jackson-smile"), SmileFactory::new);
+
+    private final MediaType mediaType;
+    private final Supplier<JsonFactory> factory;
+
+    UserProfileFormat(MediaType mediaType, Supplier<JsonFactory> factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format for an Accept header the way Spring's message converters would: highest quality and
+     * most specific first, JSON for a missing header or a wildcard. Falls back to JSON when nothing
+     * matches, as the endpoints did before they spoke anything else.
+     */
+    public static UserProfileFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType candidate : acceptable) {
+            if (candidate.getQualityValue() == 0) {
+                continue;
+            }
+            for (UserProfileFormat format : values()) {
+                if (candidate.isCompatibleWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    // Same configuration as the application's JSON mapper, writing this format instead
+    public ObjectMapper mapper(ObjectMapper jsonMapper) {
+        return factory == null ? jsonMapper : jsonMapper.copyWith(factory.get());
+    }
+
+    // Each encoding is a different representation, so it needs its own entity tag
+    public String tag(String base) {
+        return this == JSON ? base : base + "-" + name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Group commit for profile creates and patches. When enabled, a batch closes once it holds maxBatchSize
+ * writes or maxWait has passed since its first one; zero maxWait takes only what is already queued. At
+ * most queueCapacity writes wait for the committer before callers block.
+ */
+@ConfigurationProperties(prefix = "demo.group-commit")
+public record UserProfileGroupCommitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("64") int maxBatchSize,
+        @DefaultValue("2ms") Duration maxWait,
+        @DefaultValue("1024") int queueCapacity
+) {
+}
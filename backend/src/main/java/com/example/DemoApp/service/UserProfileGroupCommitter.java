@@ -0,0 +1,238 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.exception.UserAlreadyExistsException;
+import com.example.DemoApp.exception.UserNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application's TransactionOperations, which the service runs its creates and patches through. By
+ * default each call is its own transaction, exactly like a TransactionTemplate.
+ * <p>
+ * With demo.group-commit.enabled, calls from concurrent requests are queued and one committer thread runs
+ * a whole batch of them in a single transaction, so many writes share one commit. Each caller gets its
+ * result only after that commit, and the phases timed while its write ran are added to the caller's own
+ * Server-Timing breakdown, but only for the attempt that commits.
+ * <p>
+ * A write that turns itself down before changing anything, with {@link UserAlreadyExistsException} or
+ * {@link UserNotFoundException}, fails only its own caller and the rest of the batch commits. Any other
+ * exception, such as a failed statement or a failed commit, rolls the batch back and every write is
+ * replayed in a transaction of its own, so only the writes that fail alone are rejected. That costs all of
+ * them a second transaction, so callbacks expected to fail under contention, like version-checked updates
+ * whose tests may not match, should be wrapped with {@link #alone(TransactionCallback)} so they never join
+ * a batch. Callbacks must be safe to run twice, since a replay runs them again after the rollback.
+ */
+@Component
+public class UserProfileGroupCommitter implements TransactionOperations {
+
+    public static final String BATCH_SIZE_METRIC = "user.profiles.group.commit.batch.size";
+    public static final String REPLAYS_METRIC = "user.profiles.group.commit.replays";
+
+    private final TransactionTemplate transactionTemplate;
+    private final UserProfileTimings timings;
+    private final UserProfileGroupCommitProperties properties;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final DistributionSummary batchSizes;
+    private final Counter replays;
+    private volatile Thread committer;
+
+    public UserProfileGroupCommitter(PlatformTransactionManager transactionManager, UserProfileTimings timings,
+                                     UserProfileGroupCommitProperties properties, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timings = timings;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Writes committed together in one group-commit transaction")
+                .register(meterRegistry);
+        this.replays = Counter.builder(REPLAYS_METRIC)
+                .description("Group-commit batches rolled back and replayed one write per transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks a callback to always run in a transaction of its own on the caller's thread, even with group
+     * commit enabled. Any other TransactionOperations just runs it.
+     */
+    public static <T> TransactionCallback<T> alone(TransactionCallback<T> action) {
+        return (Alone<T>) action::doInTransaction;
+    }
+
+    private interface Alone<T> extends TransactionCallback<T> {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (properties.enabled() && committer == null) {
+            committer = Thread.ofPlatform().name("user-group-commit").daemon().start(this::commitLoop);
+        }
+    }
+
+    // Writes already queued are still committed; anything left after the thread exits runs here
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        Thread thread = committer;
+        if (thread == null) {
+            return;
+        }
+        committer = null;
+        thread.interrupt();
+        thread.join();
+        PendingWrite<?> write;
+        while ((write = queue.poll()) != null) {
+            write.runAlone(transactionTemplate, timings);
+        }
+    }
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+        Thread thread = committer;
+        // Calls that are already in a transaction join it, as they would with a TransactionTemplate
+        if (thread == null || Thread.currentThread() == thread || action instanceof Alone<T>
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(action);
+        }
+
+        PendingWrite<T> write = new PendingWrite<>(action, timings.currentBreakdown());
+        try {
+            queue.put(write);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TransactionSystemException("Interrupted while queueing a write for group commit");
+        }
+        // The committer stopped while this write was being queued, and stop() did not pick it up
+        if (committer == null && queue.remove(write)) {
+            return transactionTemplate.execute(action);
+        }
+        try {
+            return write.done.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingWrite<?>> batch = new ArrayList<>(properties.maxBatchSize());
+        try {
+            while (true) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + properties.maxWait().toNanos();
+                while (batch.size() < properties.maxBatchSize()) {
+                    PendingWrite<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            queue.drainTo(batch);
+            commit(batch);
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingWrite<?> write : batch) {
+                    write.run(status, timings);
+                }
+            });
+        } catch (RuntimeException | Error ex) {
+            replays.increment();
+            for (PendingWrite<?> write : batch) {
+                write.runAlone(transactionTemplate, timings);
+            }
+            return;
+        }
+        for (PendingWrite<?> write : batch) {
+            write.complete();
+        }
+    }
+
+    private static final class PendingWrite<T> {
+
+        private final TransactionCallback<T> action;
+        // The caller's Server-Timing breakdown; the caller is blocked on done, so only one thread touches it
+        private final UserProfileTimings.Breakdown breakdown;
+        private final CompletableFuture<T> done = new CompletableFuture<>();
+        // What the batched run timed; added to the caller's breakdown only if the batch commits
+        private UserProfileTimings.Breakdown batched;
+        private T result;
+        private RuntimeException rejection;
+
+        private PendingWrite(TransactionCallback<T> action, UserProfileTimings.Breakdown breakdown) {
+            this.action = action;
+            this.breakdown = breakdown;
+        }
+
+        // Inside the shared transaction; the caller only hears about it once that commits
+        void run(TransactionStatus status, UserProfileTimings timings) {
+            batched = breakdown == null ? null : new UserProfileTimings.Breakdown();
+            UserProfileTimings.Breakdown previous = timings.attachBreakdown(batched);
+            try {
+                result = action.doInTransaction(status);
+            } catch (UserAlreadyExistsException | UserNotFoundException ex) {
+                rejection = ex;
+            } finally {
+                timings.attachBreakdown(previous);
+            }
+        }
+
+        void complete() {
+            if (batched != null) {
+                breakdown.add(batched);
+            }
+            if (rejection != null) {
+                done.completeExceptionally(rejection);
+            } else {
+                done.complete(result);
+            }
+        }
+
+        void runAlone(TransactionTemplate transactionTemplate, UserProfileTimings timings) {
+            UserProfileTimings.Breakdown previous = timings.attachBreakdown(breakdown);
+            try {
+                done.complete(transactionTemplate.execute(action));
+            } catch (RuntimeException | Error ex) {
+                done.completeExceptionally(ex);
+            } finally {
+                timings.attachBreakdown(previous);
+            }
+        }
+    }
+}
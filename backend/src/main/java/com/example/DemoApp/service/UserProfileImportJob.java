@@ -0,0 +1,351 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.ImportJobStatus;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.exception.InvalidUserInputException;
+import com.example.DemoApp.validation.UserProfileValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One CSV import, run as a three-stage pipeline so parsing, validation and database writes overlap:
+ * a reader thread cuts the file into chunks of lines, a pool of validator threads parses and validates
+ * chunks in parallel, and a single writer thread inserts each validated chunk as one JDBC batch.
+ * Stages are connected by bounded queues, so a slow database makes the reader wait instead of
+ * buffering the whole file in memory.
+ */
+class UserProfileImportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileImportJob.class);
+
+    enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private record LineChunk(long firstLineNumber, List<String> lines) {
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    // Sentinels telling the next stage that an upstream thread has finished
+    private static final LineChunk END_OF_LINES = new LineChunk(-1, List.of());
+    private static final List<UserProfile> END_OF_PROFILES = Collections.unmodifiableList(new ArrayList<>());
+
+    private static final int MAX_SAMPLE_ERRORS = 20;
+
+    private final String id;
+    private final Path csvFile;
+    private final long totalBytes;
+    private final Map<String, Integer> columns;
+    private final UserProfileBatchWriter batchWriter;
+    private final int chunkSize;
+    private final int validationThreads;
+
+    private final BlockingQueue<LineChunk> lineChunks;
+    private final BlockingQueue<List<UserProfile>> validChunks;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final Queue<String> sampleErrors = new ConcurrentLinkedQueue<>();
+
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile State state = State.RUNNING;
+    private volatile String failure;
+    private ExecutorService pipeline;
+
+    UserProfileImportJob(String id, Path csvFile, Map<String, Integer> columns,
+                         UserProfileBatchWriter batchWriter, UserProfileImportProperties properties) throws IOException {
+        this.id = id;
+        this.csvFile = csvFile;
+        this.totalBytes = Files.size(csvFile);
+        this.columns = columns;
+        this.batchWriter = batchWriter;
+        this.chunkSize = properties.chunkSize();
+        this.validationThreads = properties.validationThreads();
+        this.lineChunks = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.validChunks = new ArrayBlockingQueue<>(properties.queueCapacity());
+    }
+
+    /**
+     * Maps each required field to its column index in the header line.
+     */
+    static Map<String, Integer> parseHeader(String headerLine) throws InvalidUserInputException {
+        if (headerLine == null) {
+            throw new InvalidUserInputException("The uploaded CSV file is empty.");
+        }
+        List<String> header = parseCsvLine(headerLine);
+        Map<String, Integer> columns = new HashMap<>();
+        for (String field : UserProfileValidator.requiredFields()) {
+            int index = header.indexOf(field);
+            if (index < 0) {
+                throw new InvalidUserInputException("CSV header is missing required column: " + field);
+            }
+            columns.put(field, index);
+        }
+        return columns;
+    }
+
+    String id() {
+        return id;
+    }
+
+    boolean isFinishedBefore(Instant cutoff) {
+        Instant finished = finishedAt;
+        return finished != null && finished.isBefore(cutoff);
+    }
+
+    void start() {
+        pipeline = Executors.newFixedThreadPool(validationThreads + 2,
+                Thread.ofPlatform().name("user-import-" + id + "-", 0).factory());
+        pipeline.execute(stage(this::readLines));
+        for (int i = 0; i < validationThreads; i++) {
+            pipeline.execute(stage(this::validateChunks));
+        }
+        pipeline.execute(stage(this::writeProfiles));
+        pipeline.shutdown();
+    }
+
+    ImportJobStatus status() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        double progress = state == State.COMPLETED || totalBytes == 0
+                ? 100.0
+                : Math.min(100.0, bytesRead.get() * 100.0 / totalBytes);
+
+        return new ImportJobStatus(
+                id,
+                state.name(),
+                rowsRead.get(),
+                rowsInserted.get(),
+                rowsRejected.get(),
+                progress,
+                rowsRead.get() / seconds,
+                startedAt,
+                finishedAt,
+                List.copyOf(sampleErrors),
+                failure
+        );
+    }
+
+    // Stage 1: cut the file into chunks of raw lines
+    private void readLines() throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new CountingInputStream(Files.newInputStream(csvFile)), StandardCharsets.UTF_8))) {
+            reader.readLine(); // header, checked before the job started
+
+            long lineNumber = 1;
+            long firstLineNumber = 2;
+            List<String> lines = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lines.isEmpty()) {
+                    firstLineNumber = lineNumber;
+                }
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    lineChunks.put(new LineChunk(firstLineNumber, lines));
+                    lines = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!lines.isEmpty()) {
+                lineChunks.put(new LineChunk(firstLineNumber, lines));
+            }
+        }
+        for (int i = 0; i < validationThreads; i++) {
+            lineChunks.put(END_OF_LINES);
+        }
+    }
+
+    // Stage 2: parse and validate chunks in parallel
+    private void validateChunks() throws InterruptedException {
+        while (true) {
+            LineChunk chunk = lineChunks.take();
+            if (chunk == END_OF_LINES) {
+                validChunks.put(END_OF_PROFILES);
+                return;
+            }
+
+            List<UserProfile> valid = new ArrayList<>(chunk.lines().size());
+            for (int i = 0; i < chunk.lines().size(); i++) {
+                String line = chunk.lines().get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowsRead.incrementAndGet();
+                try {
+                    valid.add(toUserProfile(parseCsvLine(line)));
+                } catch (IllegalArgumentException | InvalidUserInputException ex) {
+                    reject("Line " + (chunk.firstLineNumber() + i) + ": " + ex.getMessage());
+                }
+            }
+            if (!valid.isEmpty()) {
+                validChunks.put(valid);
+            }
+        }
+    }
+
+    // Stage 3: insert each validated chunk as one batch
+    private void writeProfiles() throws InterruptedException {
+        int finishedValidators = 0;
+        while (finishedValidators < validationThreads) {
+            List<UserProfile> chunk = validChunks.take();
+            if (chunk == END_OF_PROFILES) {
+                finishedValidators++;
+                continue;
+            }
+
+            List<Long> ids = batchWriter.insertAll(chunk);
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) == null) {
+                    reject("Username '" + chunk.get(i).getUsername() + "' already exists.");
+                } else {
+                    rowsInserted.incrementAndGet();
+                }
+            }
+        }
+        finish(State.COMPLETED, null);
+    }
+
+    private UserProfile toUserProfile(List<String> fields) {
+        UserProfileCreateRequest request = new UserProfileCreateRequest(
+                column(fields, "username"),
+                column(fields, "emailAddress"),
+                column(fields, "streetAddress"),
+                column(fields, "city"),
+                column(fields, "state"),
+                column(fields, "zipCode"));
+        UserProfileValidator.validateCreateRequest(request);
+        return request.toUserProfile();
+    }
+
+    // A short row leaves the trailing fields null, which the validator reports as missing
+    private String column(List<String> fields, String field) {
+        int index = columns.get(field);
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Splits one CSV line into trimmed fields. Supports double-quoted fields containing commas and
+     * escaped ("") quotes; quoted fields may not span lines.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private void reject(String message) {
+        rowsRejected.incrementAndGet();
+        if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
+            sampleErrors.add(message);
+        }
+    }
+
+    private Runnable stage(Stage body) {
+        return () -> {
+            try {
+                body.run();
+            } catch (Throwable ex) {
+                // Errors too, such as OutOfMemoryError on a huge file, or the job would report RUNNING forever
+                if (state == State.RUNNING) {
+                    log.error("User import {} failed", id, ex);
+                    finish(State.FAILED, "Import stopped: " + ex.getMessage());
+                    // Interrupt the other stages, which may be blocked on a queue
+                    pipeline.shutdownNow();
+                }
+                if (ex instanceof Error error) {
+                    throw error;
+                }
+            }
+        };
+    }
+
+    private synchronized void finish(State finalState, String failureMessage) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        failure = failureMessage;
+        finishedAt = Instant.now();
+        state = finalState;
+        try {
+            Files.deleteIfExists(csvFile);
+        } catch (IOException ex) {
+            log.warn("Could not delete import file {}", csvFile, ex);
+        }
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the CSV import pipeline. chunkSize rows travel between stages together, and each queue
+ * between stages holds at most queueCapacity chunks before the upstream stage blocks.
+ */
+@ConfigurationProperties(prefix = "demo.import")
+public record UserProfileImportProperties(
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("4") int validationThreads,
+        @DefaultValue("16") int queueCapacity,
+        @DefaultValue("1h") Duration jobRetention
+) {
+}
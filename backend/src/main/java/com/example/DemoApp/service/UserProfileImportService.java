@@ -0,0 +1,73 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.dto.ImportJobStatus;
+import com.example.DemoApp.exception.ImportJobNotFoundException;
+import com.example.DemoApp.exception.InvalidUserInputException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts CSV imports in the background and tracks their progress. Finished jobs are kept for
+ * demo.import.job-retention so clients can read the final counts.
+ */
+@Service
+public class UserProfileImportService {
+
+    private final UserProfileBatchWriter batchWriter;
+    private final UserProfileImportProperties properties;
+    private final Map<String, UserProfileImportJob> jobs = new ConcurrentHashMap<>();
+
+    public UserProfileImportService(UserProfileBatchWriter batchWriter, UserProfileImportProperties properties) {
+        this.batchWriter = batchWriter;
+        this.properties = properties;
+    }
+
+    public ImportJobStatus startImport(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new InvalidUserInputException("The uploaded CSV file is empty.");
+        }
+
+        // The upload only lives for the request, so the job reads from its own copy
+        Path csvFile = Files.createTempFile("user-import-", ".csv");
+        try {
+            file.transferTo(csvFile);
+            Map<String, Integer> columns;
+            try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+                columns = UserProfileImportJob.parseHeader(reader.readLine());
+            }
+
+            UserProfileImportJob job = new UserProfileImportJob(UUID.randomUUID().toString(), csvFile, columns,
+                    batchWriter, properties);
+            pruneFinishedJobs();
+            jobs.put(job.id(), job);
+            job.start();
+            return job.status();
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(csvFile);
+            throw ex;
+        }
+    }
+
+    public ImportJobStatus getImportStatus(String jobId) throws ImportJobNotFoundException {
+        UserProfileImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ImportJobNotFoundException("No import job found with id: " + jobId);
+        }
+        return job.status();
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(properties.jobRetention());
+        jobs.values().removeIf(job -> job.isFinishedBefore(cutoff));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileAggregates;
+import com.example.DemoApp.repository.UserProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running user counts by state and by zip3, so aggregates are answered from memory in time proportional
+ * to the number of buckets instead of scanning the table. Each bucket is a {@link LongAdder}, so
+ * concurrent writers to the same state don't contend on one field.
+ * <p>
+ * The counts are seeded from the table at startup and then moved by every committed insert, delete and
+ * location change. Writes the counts can't see, such as a rollback racing a commit or an entity saved
+ * with a new location, leave them off; a periodic reconciliation pass recounts the table and corrects
+ * any drift.
+ */
+@Component
+public class UserProfileLocationCounts {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileLocationCounts.class);
+
+    private final UserProfileRepository repository;
+    private final ConcurrentMap<String, LongAdder> byState = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> byZip3 = new ConcurrentHashMap<>();
+    private final Counter corrections;
+
+    public UserProfileLocationCounts(UserProfileRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.corrections = Counter.builder("user.profiles.aggregates.corrections")
+                .description("Users by which reconciliation had to correct the running location counts")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadCounts() {
+        recount();
+        log.info("Location counts loaded for {} states and {} zip3 prefixes", byState.size(), byZip3.size());
+    }
+
+    /**
+     * Recounts the table and corrects any bucket that drifted. A write committing while the recount runs
+     * can be briefly miscounted; the next pass settles it.
+     */
+    @Scheduled(fixedDelayString = "${demo.aggregates.reconcile-interval:5m}",
+            initialDelayString = "${demo.aggregates.reconcile-interval:5m}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        long drift = recount();
+        if (drift > 0) {
+            corrections.increment(drift);
+            log.warn("Reconciliation corrected location counts by {}", drift);
+        }
+    }
+
+    public UserProfileAggregates snapshot() {
+        SortedMap<String, Long> states = totals(byState);
+        long total = 0;
+        for (long count : states.values()) {
+            total += count;
+        }
+        return new UserProfileAggregates(total, states, totals(byZip3));
+    }
+
+    public void add(UserProfileLocation location) {
+        afterCommit(() -> adjust(location, 1));
+    }
+
+    public void remove(UserProfileLocation location) {
+        afterCommit(() -> adjust(location, -1));
+    }
+
+    public void move(UserProfileLocation previous, UserProfileLocation current) {
+        if (previous.state().equals(current.state()) && previous.zip3().equals(current.zip3())) {
+            return;
+        }
+        afterCommit(() -> {
+            adjust(previous, -1);
+            adjust(current, 1);
+        });
+    }
+
+    private void adjust(UserProfileLocation location, long delta) {
+        byState.computeIfAbsent(location.state(), key -> new LongAdder()).add(delta);
+        byZip3.computeIfAbsent(location.zip3(), key -> new LongAdder()).add(delta);
+    }
+
+    private long recount() {
+        return correct(byState, repository.countByState()) + correct(byZip3, repository.countByZip3());
+    }
+
+    // Eventually consistent, not exact: the difference is taken against the bucket as it is now, so a write
+    // committing between the table read and this adjustment is cancelled out until the next pass counts it
+    private static long correct(ConcurrentMap<String, LongAdder> counts, List<Object[]> rows) {
+        Map<String, Long> actual = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            actual.put((String) row[0], ((Number) row[1]).longValue());
+        }
+
+        long drift = 0;
+        for (Map.Entry<String, Long> entry : actual.entrySet()) {
+            LongAdder count = counts.computeIfAbsent(entry.getKey(), key -> new LongAdder());
+            long difference = entry.getValue() - count.sum();
+            count.add(difference);
+            drift += Math.abs(difference);
+        }
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            if (!actual.containsKey(entry.getKey())) {
+                long stale = entry.getValue().sum();
+                entry.getValue().add(-stale);
+                drift += Math.abs(stale);
+            }
+        }
+        return drift;
+    }
+
+    private static SortedMap<String, Long> totals(ConcurrentMap<String, LongAdder> counts) {
+        SortedMap<String, Long> totals = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                totals.put(key, sum);
+            }
+        });
+        return totals;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
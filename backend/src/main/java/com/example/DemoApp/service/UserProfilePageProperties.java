@@ -0,0 +1,14 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Page sizes for GET /users/. Requests asking for more than maxPageSize are capped to it.
+ */
+@ConfigurationProperties(prefix = "demo.pagination")
+public record UserProfilePageProperties(
+        @DefaultValue("50") int defaultPageSize,
+        @DefaultValue("500") int maxPageSize
+) {
+}
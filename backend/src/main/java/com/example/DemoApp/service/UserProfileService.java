@@ -1,35 +1,124 @@
 package com.example.DemoApp.service;
 
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileAggregates;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileSearch;
+import com.example.DemoApp.dto.UserProfileView;
 import com.example.DemoApp.exception.InvalidUpdateException;
 import com.example.DemoApp.exception.InvalidUserInputException;
 import com.example.DemoApp.exception.UserAlreadyExistsException;
 import com.example.DemoApp.exception.UserNotFoundException;
+import com.example.DemoApp.exception.UserUpdateConflictException;
 import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.repository.UserProfileSpecifications;
+import com.example.DemoApp.service.UserProfileTimings.Operation;
+import com.example.DemoApp.service.UserProfileTimings.Phase;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 @Service
 public class UserProfileService {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // A conditional PATCH that keeps losing the version race gives up after this many reads
+    static final int MAX_UPDATE_ATTEMPTS = 8;
+
+    private static final Set<String> PATCHABLE_FIELDS =
+            Set.of("username", "emailAddress", "streetAddress", "city", "state", "zipCode");
+
     private final UserProfileRepository repository;
+    private final UserProfileCache profileCache;
+    private final UserProfilePageProperties pageProperties;
+    private final UserProfileUsernameFilter usernameFilter;
+    private final UserProfileUsernameIndex usernameIndex;
+    private final UserProfileLocationCounts locationCounts;
+    private final UserProfileChangeCounter changeCounter;
+    private final UserProfileTimings timings;
+    private final TransactionOperations transactions;
 
-    public UserProfileService(UserProfileRepository repository) {
+    public UserProfileService(UserProfileRepository repository, UserProfileCache profileCache,
+                              UserProfilePageProperties pageProperties, UserProfileUsernameFilter usernameFilter,
+                              UserProfileUsernameIndex usernameIndex, UserProfileLocationCounts locationCounts,
+                              UserProfileChangeCounter changeCounter, UserProfileTimings timings,
+                              TransactionOperations transactions) {
         this.repository = repository;
+        this.profileCache = profileCache;
+        this.pageProperties = pageProperties;
+        this.usernameFilter = usernameFilter;
+        this.usernameIndex = usernameIndex;
+        this.locationCounts = locationCounts;
+        this.changeCounter = changeCounter;
+        this.timings = timings;
+        this.transactions = transactions;
     }
 
     public ResponseEntity<?> getUserProfile(String username) {
+        return getUserProfile(username, null, UserProfileFormat.JSON);
+    }
+
+    /**
+     * Returns the profile in the given format with a strong ETag built from its id and version. When
+     * ifNoneMatch already holds that tag the answer is 304 with no body; if the profile is cached this
+     * needs neither a query nor serialization.
+     */
+    public ResponseEntity<?> getUserProfile(String username, String ifNoneMatch, UserProfileFormat format) {
         try {
-            return repository.findByUsername(username)
-                    .<ResponseEntity<?>>map(ResponseEntity::ok)
-                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                            .body("That user does not exist. Please try again."));
+            // A definite miss from the filter means the user was never stored, so skip the query
+            if (!usernameFilter.mightContain(username)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("That user does not exist. Please try again.");
+            }
+
+            if (ifNoneMatch != null) {
+                UserProfileCache.CachedProfile cached = profileCache.getIfPresent(username);
+                if (cached != null && matches(ifNoneMatch, cached.eTag(format))) {
+                    return notModified(cached.eTag(format));
+                }
+            }
+
+            UserProfileCache.CachedProfile profile = profileCache.get(username, key -> timings.time(
+                    Operation.GET, Phase.REPOSITORY, () -> repository.findViewByUsername(key).orElse(null)));
+
+            if (profile == null) {
+                usernameFilter.recordFalsePositive();
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("That user does not exist. Please try again.");
+            }
+            ETag eTag = profile.eTag(format);
+            if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+
+            byte[] body = timings.time(Operation.GET, Phase.SERIALIZATION, () -> profile.bytes(format));
+            return ResponseEntity.ok()
+                    .contentType(format.mediaType())
+                    .eTag(eTag.toString())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(body);
 
         } catch (NumberFormatException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -40,73 +129,224 @@ public class UserProfileService {
         }
     }
 
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(String cursor, Integer pageSize) {
+        return getAllUsers(cursor, pageSize, null, UserProfileFormat.JSON);
+    }
+
+    /**
+     * Returns one keyset page tagged with the table's change counter. Any committed write changes the
+     * tag, so when ifNoneMatch still holds it the answer is 304 without running the query. The format
+     * only picks the tag; the page itself is encoded by whichever message converter matches the request.
+     */
+    public ResponseEntity<?> getAllUsers(String cursor, Integer pageSize, String ifNoneMatch, UserProfileFormat format) {
+        long afterId = cursor == null ? 0L : UserProfileCursor.decode(cursor);
+        int size = resolvePageSize(pageSize);
+        // Read before the query, so rows committed meanwhile can only ever appear under an older tag
+        ETag eTag = changeCounter.currentETag(format);
+        if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+
         try {
-            var allUsers = repository.findAll();
+            // Fetch one extra row to learn whether another page exists without a COUNT query
+            List<UserProfileView> rows = timings.time(Operation.LIST, Phase.REPOSITORY,
+                    () -> repository.findViewsByIdGreaterThan(afterId, Limit.of(size + 1)));
 
-            if (allUsers.isEmpty()) {
+            if (rows.isEmpty() && cursor == null) {
                 return ResponseEntity.status(HttpStatus.OK)
+                        .eTag(eTag.toString())
+                        .varyBy(HttpHeaders.ACCEPT)
                         .body("No user profiles found in the database.");
             }
 
-            return ResponseEntity.ok(allUsers);
+            return toPage(rows, size, eTag);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("A server error occurred while retrieving user profiles.");
         }
     }
 
-    public ResponseEntity<String> createUserProfile(Map<String, String> payload) {
-        UserProfile user = UserProfile.builder()
-                .username(payload.get("username"))
-                .emailAddress(payload.get("emailAddress"))
-                .streetAddress(payload.get("streetAddress"))
-                .city(payload.get("city"))
-                .state(payload.get("state"))
-                .zipCode(payload.get("zipCode"))
-                .build();
+    /**
+     * Returns one keyset page of the users matching every given filter, ordered by id. Each filter column
+     * has an (column, id) index, so the page is read in order straight off an index.
+     */
+    public ResponseEntity<?> searchUsers(UserProfileSearch search, String cursor, Integer pageSize) {
+        if (search.isEmpty()) {
+            throw new InvalidUserInputException("Provide at least one of emailAddress, city, state or zipCode.");
+        }
+        long afterId = cursor == null ? 0L : UserProfileCursor.decode(cursor);
+        int size = resolvePageSize(pageSize);
+
+        try {
+            List<UserProfileView> rows = timings.time(Operation.SEARCH, Phase.REPOSITORY,
+                    () -> repository.findViews(UserProfileSpecifications.matching(search, afterId),
+                            Limit.of(size + 1)));
+            return toPage(rows, size, null);
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("A server error occurred while searching user profiles.");
+        }
+    }
+
+    /**
+     * Returns usernames starting with the prefix, ignoring case, from the in-memory typeahead index.
+     */
+    public ResponseEntity<List<String>> findUsernamesByPrefix(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidUserInputException("Prefix must not be blank.");
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidUserInputException("Limit must be at least 1.");
+        }
+        return ResponseEntity.ok(usernameIndex.findByPrefix(prefix.trim(), limit));
+    }
+
+    /**
+     * Returns user counts by state and zip3 from the running in-memory counts, without touching the table.
+     */
+    public ResponseEntity<UserProfileAggregates> getAggregates() {
+        return ResponseEntity.ok(locationCounts.snapshot());
+    }
+
+    // Trims the extra look-ahead row and, when it was present, advertises the cursor for the next page
+    private ResponseEntity<List<UserProfileView>> toPage(List<UserProfileView> rows, int size, ETag eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag.toString()).varyBy(HttpHeaders.ACCEPT);
+        }
+        if (rows.size() <= size) {
+            return response.body(rows);
+        }
+
+        List<UserProfileView> page = rows.subList(0, size);
+        return response
+                .header(NEXT_CURSOR_HEADER, UserProfileCursor.encode(page.get(size - 1).id()))
+                .body(page);
+    }
+
+    // If-None-Match uses the weak comparison; "*" matches any current representation
+    private static boolean matches(String ifNoneMatch, ETag current) {
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<?> notModified(ETag eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.toString()).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private int resolvePageSize(Integer pageSize) throws InvalidUserInputException {
+        if (pageSize == null) {
+            return pageProperties.defaultPageSize();
+        }
+        if (pageSize < 1) {
+            throw new InvalidUserInputException("Page size must be at least 1.");
+        }
+        return Math.min(pageSize, pageProperties.maxPageSize());
+    }
 
+    // Runs through the transactions the service was given, so creates share commits in group-commit mode
+    public ResponseEntity<String> createUserProfile(UserProfileCreateRequest request) {
         try {
-            UserProfile saved = repository.save(user);
+            UserProfile saved = transactions.execute(status -> {
+                // A fresh entity per run: a group-commit replay must not reuse one the rolled-back batch gave an id
+                UserProfile user = request.toUserProfile();
+                // Only a possible match needs the indexed lookup; it saves a failed INSERT on likely duplicates
+                if (usernameFilter.mightContain(user.getUsername())) {
+                    if (timings.time(Operation.CREATE, Phase.REPOSITORY, () -> repository.existsByUsername(user.getUsername()))) {
+                        throw new UserAlreadyExistsException();
+                    }
+                    usernameFilter.recordFalsePositive();
+                }
+                return timings.time(Operation.CREATE, Phase.REPOSITORY, () -> repository.save(user));
+            });
             return ResponseEntity.ok("New user ID " + saved.getId() + " created successfully.");
         } catch (DataIntegrityViolationException dive) {
             throw new UserAlreadyExistsException();
+        } catch (UserAlreadyExistsException ex) {
+            throw ex; // Let GlobalExceptionHandler handle this
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("An error occurred while creating a user profile. Double-check your request.");
         }
     }
 
-    public ResponseEntity<?> updateUserProfile(String username, Map<String, String> payload) {
+    public ResponseEntity<?> updateUserProfile(String username, UserProfilePatchOperation operation) {
+        return updateUserProfile(username, List.of(operation));
+    }
+
+    /**
+     * Applies a list of replace operations to one user in a single transaction. Without test operations
+     * the changes go out as one UPDATE ... WHERE username = ? without loading the entity (other databases
+     * than H2 read the location first); the repository hands back the user's previous location, and no
+     * location at all means the user does not exist.
+     * Concurrent patches to different fields therefore both survive, and the same field ends with the last
+     * value written.
+     * <p>
+     * Test operations make the patch conditional: the row is read, every test must match it, and the
+     * UPDATE only applies while the row is still at the version that was read. Losing that race to another
+     * writer is retried with a fresh read, so 409 means a test really failed or the row kept changing.
+     * Both kinds of patch retry, with the same bounded jittered backoff, when the database reports a lock
+     * or serialization failure.
+     */
+    public ResponseEntity<?> updateUserProfile(String username, List<UserProfilePatchOperation> operations) {
         try {
-            Optional<UserProfile> existingUserOpt = repository.findByUsername(username);
+            String newUsername = null;
+            String emailAddress = null;
+            String streetAddress = null;
+            String city = null;
+            String state = null;
+            String zipCode = null;
+            Set<String> updatedFields = new LinkedHashSet<>();
+            List<UserProfilePatchOperation> tests = new ArrayList<>();
 
-            if (existingUserOpt.isEmpty()) {
-                throw new UserNotFoundException("No user found with username: " + username);
-            }
+            // Apply updates in request order; a repeated path ends with its last value
+            for (UserProfilePatchOperation operation : operations) {
+                String field = operation.path();
+                String newValue = operation.value();
 
-            // Extract update info
-            String field = payload.get("path");
-            String newValue = payload.get("value");
-            UserProfile user = existingUserOpt.get();
-
-            // Apply update
-            switch (field) {
-                case "username" -> user.setUsername(newValue);
-                case "emailAddress" -> user.setEmailAddress(newValue);
-                case "streetAddress" -> user.setStreetAddress(newValue);
-                case "city" -> user.setCity(newValue);
-                case "state" -> user.setState(newValue);
-                case "zipCode" -> user.setZipCode(newValue);
-                default -> throw new InvalidUpdateException("Field '" + field + "' cannot be updated.");
+                if ("test".equalsIgnoreCase(operation.op())) {
+                    if (!PATCHABLE_FIELDS.contains(field)) {
+                        throw new InvalidUpdateException("Field '" + field + "' cannot be tested.");
+                    }
+                    tests.add(operation);
+                    continue;
+                }
+                switch (field) {
+                    case "username" -> newUsername = newValue;
+                    case "emailAddress" -> emailAddress = newValue;
+                    case "streetAddress" -> streetAddress = newValue;
+                    case "city" -> city = newValue;
+                    case "state" -> state = newValue;
+                    case "zipCode" -> zipCode = newValue;
+                    default -> throw new InvalidUpdateException("Field '" + field + "' cannot be updated.");
+                }
+                // Null means "unchanged" to the UPDATE statement, and every column is NOT NULL anyway
+                if (newValue == null) {
+                    throw new InvalidUpdateException("Field '" + field + "' cannot be blank.");
+                }
+                updatedFields.add(field);
+            }
+            if (updatedFields.isEmpty()) {
+                throw new InvalidUpdateException("At least one replace operation is required.");
             }
 
-            repository.saveAndFlush(user);
-            return ResponseEntity.ok(field + " updated for user: " + user.getUsername());
+            if (!usernameFilter.mightContain(username)) {
+                throw new UserNotFoundException("No user found with username: " + username);
+            }
+            Changes changes = new Changes(newUsername, emailAddress, streetAddress, city, state, zipCode);
+            // A failed test throws, which would roll back a whole group-commit batch, so these never join one
+            String currentUsername = updateWithRetries(tests.isEmpty()
+                    ? status -> applyUpdate(username, changes, null)
+                    : UserProfileGroupCommitter.alone(status -> applyIfUnchanged(username, changes, tests)));
+            return ResponseEntity.ok(String.join(", ", updatedFields) + " updated for user: " + currentUsername);
 
         } catch (DataIntegrityViolationException dive) {
             throw new UserAlreadyExistsException();
-        } catch (InvalidUpdateException | UserNotFoundException ex) {
+        } catch (InvalidUpdateException | UserNotFoundException | UserUpdateConflictException ex) {
             throw ex; // Let GlobalExceptionHandler handle these
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -114,15 +354,118 @@ public class UserProfileService {
         }
     }
 
-    public ResponseEntity<?> deleteUserProfile(String username) {
+    private record Changes(String newUsername, String emailAddress, String streetAddress, String city, String state,
+                           String zipCode) {
+    }
+
+    /**
+     * Runs each attempt in its own transaction, so a retry sees whatever write beat the last one. An attempt
+     * is retried when it returns null, which only the conditional path does, or when the database reports a
+     * concurrency failure such as a lock timeout or deadlock.
+     */
+    private String updateWithRetries(TransactionCallback<String> update) {
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            String updated;
+            try {
+                updated = transactions.execute(update);
+            } catch (ConcurrencyFailureException ex) {
+                updated = null;
+            }
+            if (updated != null) {
+                return updated;
+            }
+            if (attempt < MAX_UPDATE_ATTEMPTS) {
+                // Full jitter, so writers that collided once do not collide again in lockstep
+                long ceiling = TimeUnit.MILLISECONDS.toNanos(1) << (attempt - 1);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling));
+            }
+        }
+        throw new UserUpdateConflictException(
+                "The user profile kept changing while it was being updated. Please try again.");
+    }
+
+    // Null when the row moved on between the read and the UPDATE
+    private String applyIfUnchanged(String username, Changes changes, List<UserProfilePatchOperation> tests) {
+        UserProfileView current = timings
+                .time(Operation.UPDATE, Phase.REPOSITORY, () -> repository.findViewByUsername(username))
+                .orElseThrow(() -> new UserNotFoundException("No user found with username: " + username));
+        for (UserProfilePatchOperation test : tests) {
+            if (!Objects.equals(test.value(), fieldValue(current, test.path()))) {
+                throw new UserUpdateConflictException("Field '" + test.path()
+                        + "' no longer has the value '" + test.value() + "'. Reload and try again.");
+            }
+        }
+        return applyUpdate(username, changes, current.version());
+    }
+
+    /**
+     * Runs the UPDATE, unconditionally when expectedVersion is null, and keeps the in-memory structures
+     * in step. Returns the user's name after the change, or null when the row had moved past expectedVersion.
+     */
+    private String applyUpdate(String username, Changes changes, Long expectedVersion) {
+        // The bulk UPDATE skips entity callbacks, so record the new name before it can commit
+        usernameFilter.put(changes.newUsername());
+
+        long started = System.nanoTime();
+        Optional<UserProfileLocation> updated;
         try {
-            Optional<UserProfile> userOpt = repository.findByUsername(username);
+            updated = expectedVersion == null
+                    ? repository.updateByUsername(username, changes.newUsername(), changes.emailAddress(),
+                            changes.streetAddress(), changes.city(), changes.state(), changes.zipCode())
+                    : repository.updateByUsernameAndVersion(username, expectedVersion, changes.newUsername(),
+                            changes.emailAddress(), changes.streetAddress(), changes.city(), changes.state(),
+                            changes.zipCode());
+        } finally {
+            timings.recordSince(Operation.UPDATE, Phase.REPOSITORY, started);
+        }
+        if (updated.isEmpty()) {
+            if (expectedVersion != null) {
+                return null;
+            }
+            throw new UserNotFoundException("No user found with username: " + username);
+        }
+        UserProfileLocation previous = updated.get();
+        changeCounter.recordChange();
+        if (changes.state() != null || changes.zipCode() != null) {
+            locationCounts.move(previous, new UserProfileLocation(
+                    changes.state() != null ? changes.state() : previous.state(),
+                    changes.zipCode() != null ? changes.zipCode() : previous.zipCode()));
+        }
+
+        String currentUsername = changes.newUsername() != null ? changes.newUsername() : username;
+        if (!currentUsername.equals(username)) {
+            usernameIndex.rename(username, currentUsername);
+        }
+        profileCache.invalidateAfterCompletion(username, currentUsername);
+        return currentUsername;
+    }
 
-            if (userOpt.isEmpty()) {
+    private static String fieldValue(UserProfileView view, String field) {
+        return switch (field) {
+            case "username" -> view.username();
+            case "emailAddress" -> view.emailAddress();
+            case "streetAddress" -> view.streetAddress();
+            case "city" -> view.city();
+            case "state" -> view.state();
+            case "zipCode" -> view.zipCode();
+            default -> throw new InvalidUpdateException("Field '" + field + "' cannot be tested.");
+        };
+    }
+
+    // One DELETE ... WHERE username = ? on H2; the returned location tells us whether the user existed
+    @Transactional
+    public ResponseEntity<?> deleteUserProfile(String username) {
+        try {
+            if (!usernameFilter.mightContain(username)) {
                 throw new UserNotFoundException("No user found with username: " + username);
             }
-            UserProfile user = userOpt.get();
-            repository.delete(user);
+            UserProfileLocation deleted = timings
+                    .time(Operation.DELETE, Phase.REPOSITORY, () -> repository.deleteByUsername(username))
+                    .orElseThrow(() -> new UserNotFoundException("No user found with username: " + username));
+            usernameIndex.remove(username);
+            locationCounts.remove(deleted);
+            changeCounter.recordChange();
+            profileCache.invalidateAfterCompletion(username);
             return ResponseEntity.noContent().build();
         } catch (UserNotFoundException ex) {
             throw ex; // Let GlobalExceptionHandler handle this
@@ -0,0 +1,156 @@
+package com.example.DemoApp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Phase timers for the user profile endpoints, one per operation and phase, tagged so Prometheus can
+ * break a slow endpoint down into validation, repository and serialization time. Each timer publishes a
+ * percentile histogram, so quantiles can be aggregated across instances.
+ * <p>
+ * While a request breakdown is open on the current thread, the same durations are also summed into it
+ * for the Server-Timing response header. All timers are registered up front, so recording a phase never
+ * looks a meter up.
+ */
+@Component
+public class UserProfileTimings {
+
+    public static final String METRIC_NAME = "user.profiles.phase";
+
+    public enum Operation {
+        GET, LIST, SEARCH, CREATE, UPDATE, DELETE;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Phase {
+        VALIDATION("validation"),
+        REPOSITORY("db"),
+        SERIALIZATION("serialize");
+
+        final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Timer[][] timers = new Timer[Operation.values().length][PHASES.length];
+    private final ThreadLocal<Breakdown> current = new ThreadLocal<>();
+
+    public UserProfileTimings(MeterRegistry meterRegistry) {
+        for (Operation operation : Operation.values()) {
+            for (Phase phase : PHASES) {
+                timers[operation.ordinal()][phase.ordinal()] = Timer.builder(METRIC_NAME)
+                        .description("Time spent in one phase of a user profile request")
+                        .tag("operation", operation.tag)
+                        .tag("phase", phase.tag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(10_000))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public <T> T time(Operation operation, Phase phase, Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordSince(operation, phase, started);
+        }
+    }
+
+    public void run(Operation operation, Phase phase, Runnable work) {
+        long started = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            recordSince(operation, phase, started);
+        }
+    }
+
+    // For call sites whose inputs are not effectively final; pass the System.nanoTime() taken before the phase
+    public void recordSince(Operation operation, Phase phase, long startedNanos) {
+        long elapsed = System.nanoTime() - startedNanos;
+        timers[operation.ordinal()][phase.ordinal()].record(elapsed, TimeUnit.NANOSECONDS);
+        Breakdown breakdown = current.get();
+        if (breakdown != null) {
+            breakdown.phaseNanos[phase.ordinal()] += elapsed;
+        }
+    }
+
+    public Breakdown openBreakdown() {
+        Breakdown breakdown = new Breakdown();
+        current.set(breakdown);
+        return breakdown;
+    }
+
+    public Breakdown currentBreakdown() {
+        return current.get();
+    }
+
+    public void closeBreakdown() {
+        current.remove();
+    }
+
+    /**
+     * Makes the given breakdown, possibly another thread's, the one this thread records into, and returns
+     * the one it replaces. Lets work handed to another thread still show up in the waiting request's
+     * Server-Timing header; the request must not read the breakdown until that work is done.
+     */
+    public Breakdown attachBreakdown(Breakdown breakdown) {
+        Breakdown previous = current.get();
+        if (breakdown == null) {
+            current.remove();
+        } else {
+            current.set(breakdown);
+        }
+        return previous;
+    }
+
+    /**
+     * Time one request spent in each phase, plus the total since it was opened.
+     */
+    public static final class Breakdown {
+
+        private final long openedNanos = System.nanoTime();
+        private final long[] phaseNanos = new long[PHASES.length];
+
+        public long phaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+
+        void add(Breakdown other) {
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] += other.phaseNanos[i];
+            }
+        }
+
+        // e.g. "validation;dur=0.012, db;dur=1.305, total;dur=1.870"; phases that did not run are left out
+        public String toHeaderValue() {
+            StringBuilder header = new StringBuilder(96);
+            for (Phase phase : PHASES) {
+                long nanos = phaseNanos[phase.ordinal()];
+                if (nanos > 0) {
+                    appendMetric(header, phase.tag, nanos).append(", ");
+                }
+            }
+            return appendMetric(header, "total", System.nanoTime() - openedNanos).toString();
+        }
+
+        private static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+            return header.append(name).append(";dur=").append(BigDecimal.valueOf(nanos / 1_000, 3).toPlainString());
+        }
+    }
+}
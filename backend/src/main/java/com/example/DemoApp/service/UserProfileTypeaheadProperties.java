@@ -0,0 +1,14 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Result sizes for GET /users/_typeahead. Requests asking for more than maxLimit matches are capped to it.
+ */
+@ConfigurationProperties(prefix = "demo.typeahead")
+public record UserProfileTypeaheadProperties(
+        @DefaultValue("10") int defaultLimit,
+        @DefaultValue("50") int maxLimit
+) {
+}
@@ -0,0 +1,232 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.repository.UserProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every username in the database. A negative answer is definite, so lookups for
+ * usernames that were never created can skip the database; a positive answer only means "maybe" and the
+ * caller still has to ask the database.
+ * <p>
+ * Bits are set with lock-free CAS, so writers never block readers. Deleted and renamed-away usernames
+ * stay in the filter: that only adds false positives, never false negatives, and the filter is rebuilt
+ * from scratch on every restart. Until the startup load finishes every lookup answers "maybe".
+ */
+@Component
+public class UserProfileUsernameFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileUsernameFilter.class);
+
+    private static final String METRIC_PREFIX = "user.profiles.username.filter";
+    private static final double LN2 = Math.log(2);
+
+    private final UserProfileRepository repository;
+    private final boolean enabled;
+    private final double targetFalsePositiveRate;
+    private final long expectedInsertions;
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final LongAdder bitsSet = new LongAdder();
+
+    private final Counter definiteMisses;
+    private final Counter possibleHits;
+    private final Counter falsePositives;
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean ready;
+
+    public UserProfileUsernameFilter(UserProfileRepository repository, UserProfileUsernameFilterProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.enabled();
+        this.targetFalsePositiveRate = properties.falsePositiveRate();
+        this.expectedInsertions = Math.max(1, properties.expectedInsertions());
+
+        // Standard sizing: m = -n ln(p) / (ln 2)^2 bits, capped by the memory budget, then k = (m / n) ln 2
+        long idealBits = (long) Math.ceil(-expectedInsertions * Math.log(targetFalsePositiveRate) / (LN2 * LN2));
+        long maxBits = Math.max(Long.SIZE, properties.maxMemory().toBytes() * Byte.SIZE);
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8,
+                (Math.max(Long.SIZE, Math.min(idealBits, maxBits)) + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(enabled ? wordCount : 1);
+        this.bitCount = (long) words.length() * Long.SIZE;
+        this.hashFunctions = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * LN2));
+
+        this.definiteMisses = Counter.builder(METRIC_PREFIX + ".checks")
+                .description("Username filter lookups by answer")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        this.possibleHits = Counter.builder(METRIC_PREFIX + ".checks")
+                .description("Username filter lookups by answer")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder(METRIC_PREFIX + ".false.positives")
+                .description("Lookups the filter answered 'maybe' for that the database then did not find")
+                .register(meterRegistry);
+    }
+
+    // Registered once construction is done, since each gauge keeps a reference to this filter
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder(METRIC_PREFIX + ".memory", this, UserProfileUsernameFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".fpp", this, f -> f.targetFalsePositiveRate)
+                .tag("type", "target")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".fpp", this, UserProfileUsernameFilter::estimatedFalsePositiveRate)
+                .tag("type", "estimated")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".insertions", this, UserProfileUsernameFilter::estimatedInsertions)
+                .description("Distinct usernames in the filter, estimated from the fill ratio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every existing username. Writes that happen meanwhile are added by {@link #put(String)}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadExistingUsernames() {
+        if (!enabled) {
+            return;
+        }
+        long loaded = 0;
+        try (Stream<String> usernames = repository.streamAllUsernames()) {
+            for (String username : (Iterable<String>) usernames::iterator) {
+                add(username);
+                loaded++;
+            }
+        }
+        ready = true;
+
+        log.info("Username filter loaded {} usernames into {} KB with {} hash functions; estimated false-positive rate {} (target {})",
+                loaded, memoryBytes() / 1024, hashFunctions,
+                String.format("%.4f", estimatedFalsePositiveRate()), targetFalsePositiveRate);
+        if (loaded > expectedInsertions) {
+            log.warn("Username filter holds more usernames ({}) than demo.username-filter.expected-insertions ({}); "
+                    + "raise it to keep the false-positive rate near target", loaded, expectedInsertions);
+        }
+    }
+
+    /**
+     * Returns false only when the username has definitely never been stored.
+     */
+    public boolean mightContain(String username) {
+        if (!enabled || !ready || username == null) {
+            return true;
+        }
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.increment();
+                return false;
+            }
+        }
+        possibleHits.increment();
+        return true;
+    }
+
+    /**
+     * Records a username that is about to exist. Call before the write commits so no reader can see the
+     * row while the filter still says it is absent.
+     */
+    public void put(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        add(username);
+        // The startup load may read the table before this transaction commits; adding again afterwards
+        // guarantees the username is in the filter by the time lookups start trusting it
+        if (!ready && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Counts a "maybe" answer the database did not confirm, for the false.positives metric.
+     */
+    public void recordFalsePositive() {
+        if (enabled && ready) {
+            falsePositives.increment();
+        }
+    }
+
+    public long memoryBytes() {
+        return enabled ? (long) words.length() * Long.BYTES : 0;
+    }
+
+    public double estimatedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.sum() / bitCount, hashFunctions);
+    }
+
+    double estimatedInsertions() {
+        double fill = Math.min((double) bitsSet.sum() / bitCount, 1 - 1e-9);
+        return -((double) bitCount / hashFunctions) * Math.log(1 - fill);
+    }
+
+    private void add(String username) {
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1, h2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    bitsSet.increment();
+                    break;
+                }
+                current = witness;
+            }
+        }
+    }
+
+    // Kirsch-Mitzenmacher double hashing: k indexes from two 32-bit halves of one 64-bit hash
+    private long index(int h1, int h2, int i) {
+        long combined = h1 + (long) i * h2;
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    // FNV-1a over the chars followed by the MurmurHash3 finalizer, so both halves are well mixed
+    private static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            h ^= username.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
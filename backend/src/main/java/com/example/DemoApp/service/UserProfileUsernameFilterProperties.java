@@ -0,0 +1,19 @@
+package com.example.DemoApp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Sizing for the username Bloom filter. The filter is sized for expectedInsertions usernames at the
+ * target falsePositiveRate, but never takes more than maxMemory; when the cap wins the achieved rate is
+ * logged at startup. Watch user.profiles.username.filter.* on /actuator/metrics to see how it holds up.
+ */
+@ConfigurationProperties(prefix = "demo.username-filter")
+public record UserProfileUsernameFilterProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000000") long expectedInsertions,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("16MB") DataSize maxMemory
+) {
+}
@@ -0,0 +1,360 @@
+package com.example.DemoApp.service;
+
+import com.example.DemoApp.repository.UserProfileRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory radix tree of usernames for typeahead lookups. Matching is case-insensitive; results come
+ * back in their stored case, sorted, and a lookup only walks the prefix plus as many nodes as it takes
+ * to collect the requested number of matches.
+ * <p>
+ * Each node stores its compressed edge label and exactly-sized sorted arrays of child first-characters
+ * and children, so memory per node stays small no matter the alphabet. Reads share a lock; writes are
+ * rare and take it exclusively. Changes are applied after the surrounding transaction commits so a
+ * rolled-back create never shows up.
+ */
+@Component
+public class UserProfileUsernameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileUsernameIndex.class);
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final String[] NO_USERNAMES = new String[0];
+
+    private final UserProfileRepository repository;
+    private final UserProfileTypeaheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private int usernameCount;
+    private int nodeCount = 1;
+
+    public UserProfileUsernameIndex(UserProfileRepository repository, UserProfileTypeaheadProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Registered once construction is done, since each gauge keeps a reference to this index
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("user.profiles.typeahead.usernames", this, UserProfileUsernameIndex::size)
+                .description("Usernames in the typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("user.profiles.typeahead.nodes", this, UserProfileUsernameIndex::nodeCount)
+                .description("Radix tree nodes in the typeahead index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadExistingUsernames() {
+        try (Stream<String> usernames = repository.streamAllUsernames()) {
+            usernames.forEach(this::insert);
+        }
+        log.info("Typeahead index loaded {} usernames in {} nodes", size(), nodeCount());
+    }
+
+    /**
+     * Returns up to limit usernames starting with the prefix, ignoring case, in sorted order. The limit
+     * falls back to the configured default and is capped at the configured maximum.
+     */
+    public List<String> findByPrefix(String prefix, Integer limit) {
+        int max = limit == null ? properties.defaultLimit() : Math.min(limit, properties.maxLimit());
+        List<String> matches = new ArrayList<>(Math.min(max, 64));
+        if (max < 1) {
+            return matches;
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int slot = node.find(key.charAt(i));
+                if (slot < 0) {
+                    return matches;
+                }
+                Node child = node.children[slot];
+                int common = commonPrefix(child.label, key, i);
+                if (i + common == key.length()) {
+                    // The prefix ends inside (or at the end of) this edge, so everything below matches
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return matches;
+                }
+                node = child;
+                i += common;
+            }
+            collect(node, matches, max);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String username) {
+        afterCommit(() -> insert(username));
+    }
+
+    public void remove(String username) {
+        afterCommit(() -> delete(username));
+    }
+
+    public void rename(String previousUsername, String newUsername) {
+        afterCommit(() -> {
+            delete(previousUsername);
+            insert(newUsername);
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return usernameCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int slot = node.find(key.charAt(i));
+                if (slot < 0) {
+                    Node leaf = new Node(key.substring(i));
+                    leaf.usernames = new String[]{username};
+                    node.insertChild(-(slot + 1), leaf);
+                    nodeCount++;
+                    usernameCount++;
+                    return;
+                }
+                Node child = node.children[slot];
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) {
+                    // Split the edge where the new key diverges from it
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.keys = new char[]{child.label.charAt(0)};
+                    split.children = new Node[]{child};
+                    node.children[slot] = split;
+                    nodeCount++;
+                    child = split;
+                }
+                node = child;
+                i += common;
+            }
+            if (node.indexOf(username) < 0) {
+                node.usernames = append(node.usernames, username);
+                usernameCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void delete(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        lock.writeLock().lock();
+        try {
+            Node parent = null;
+            int parentSlot = -1;
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int slot = node.find(key.charAt(i));
+                if (slot < 0) {
+                    return;
+                }
+                Node child = node.children[slot];
+                if (!key.startsWith(child.label, i)) {
+                    return;
+                }
+                parent = node;
+                parentSlot = slot;
+                node = child;
+                i += child.label.length();
+            }
+
+            int index = node.indexOf(username);
+            if (index < 0) {
+                return;
+            }
+            node.usernames = without(node.usernames, index);
+            usernameCount--;
+
+            if (node == root || node.usernames.length > 0) {
+                return;
+            }
+            if (node.children.length == 0) {
+                parent.removeChild(parentSlot);
+                nodeCount--;
+                // The parent may now be a pass-through node that can be folded into its only child
+                if (parent != root && parent.usernames.length == 0 && parent.children.length == 1) {
+                    parent.mergeWithOnlyChild();
+                    nodeCount--;
+                }
+            } else if (node.children.length == 1) {
+                node.mergeWithOnlyChild();
+                nodeCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Depth-first in key order; a node's own usernames sort before anything longer below it
+    private static void collect(Node node, List<String> matches, int max) {
+        for (String username : node.usernames) {
+            if (matches.size() == max) {
+                return;
+            }
+            matches.add(username);
+        }
+        for (Node child : node.children) {
+            if (matches.size() == max) {
+                return;
+            }
+            collect(child, matches, max);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static String[] append(String[] usernames, String username) {
+        String[] grown = Arrays.copyOf(usernames, usernames.length + 1);
+        grown[usernames.length] = username;
+        Arrays.sort(grown);
+        return grown;
+    }
+
+    private static String[] without(String[] usernames, int index) {
+        if (usernames.length == 1) {
+            return NO_USERNAMES;
+        }
+        String[] shrunk = new String[usernames.length - 1];
+        System.arraycopy(usernames, 0, shrunk, 0, index);
+        System.arraycopy(usernames, index + 1, shrunk, index, shrunk.length - index);
+        return shrunk;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static final class Node {
+
+        String label;
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        // Usernames whose lowercased form ends at this node; more than one only when they differ by case
+        String[] usernames = NO_USERNAMES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int find(char c) {
+            return Arrays.binarySearch(keys, c);
+        }
+
+        int indexOf(String username) {
+            for (int i = 0; i < usernames.length; i++) {
+                if (usernames[i].equals(username)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void insertChild(int slot, Node child) {
+            char[] grownKeys = new char[keys.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, slot);
+            System.arraycopy(children, 0, grownChildren, 0, slot);
+            grownKeys[slot] = child.label.charAt(0);
+            grownChildren[slot] = child;
+            System.arraycopy(keys, slot, grownKeys, slot + 1, keys.length - slot);
+            System.arraycopy(children, slot, grownChildren, slot + 1, children.length - slot);
+            keys = grownKeys;
+            children = grownChildren;
+        }
+
+        void removeChild(int slot) {
+            if (children.length == 1) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunkChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, slot);
+            System.arraycopy(children, 0, shrunkChildren, 0, slot);
+            System.arraycopy(keys, slot + 1, shrunkKeys, slot, shrunkKeys.length - slot);
+            System.arraycopy(children, slot + 1, shrunkChildren, slot, shrunkChildren.length - slot);
+            keys = shrunkKeys;
+            children = shrunkChildren;
+        }
+
+        // Absorbs the single child into this node, keeping this node's first character so the parent's key stays valid
+        void mergeWithOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            keys = child.keys;
+            children = child.children;
+            usernames = child.usernames;
+        }
+    }
+}
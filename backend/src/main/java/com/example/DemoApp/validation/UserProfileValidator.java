@@ -1,5 +1,7 @@
 package com.example.DemoApp.validation;
 
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
 import com.example.DemoApp.exception.InvalidUpdateException;
 import com.example.DemoApp.exception.InvalidUserInputException;
 
@@ -12,53 +14,148 @@ import java.util.*;
 
 public class UserProfileValidator {
 
-    private static final Set<String> REQUIRED_FIELDS = new LinkedHashSet<>(Arrays.asList(
+    private static final Set<String> REQUIRED_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
             "username",
             "emailAddress",
             "streetAddress",
             "city",
             "state",
             "zipCode"
-    ));
+    )));
 
-    public static void validateCreateRequest(Map<String, String> payload) throws IllegalArgumentException {
-        for (String field : REQUIRED_FIELDS) {
-            if (!payload.containsKey(field)) {
-                throw new IllegalArgumentException("Missing required field: " + field);
-            }
-            String value = payload.get(field);
-            if (value == null || value.isBlank()) {
-                throw new IllegalArgumentException("Field '" + field + "' cannot be blank.");
-            }
-        }
+    private static final int MAX_USERNAME_LENGTH = 32;
+
+    public static Set<String> requiredFields() {
+        return REQUIRED_FIELDS;
+    }
 
-        validateEmail(payload.get("emailAddress"));
+    // Fields are checked in requiredFields() order, so the first problem found is the one reported
+    public static void validateCreateRequest(UserProfileCreateRequest request) throws IllegalArgumentException {
+        requireText("username", request.username());
+        requireText("emailAddress", request.emailAddress());
+        requireText("streetAddress", request.streetAddress());
+        requireText("city", request.city());
+        requireText("state", request.state());
+        requireText("zipCode", request.zipCode());
+
+        validateEmail(request.emailAddress());
+    }
+
+    private static void requireText(String field, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required field: " + field);
+        }
+        if (value.isBlank()) {
+            throw new IllegalArgumentException("Field '" + field + "' cannot be blank.");
+        }
     }
 
     public static void validateUsername(String id) throws InvalidUserInputException {
-        if (!id.matches("^[A-Za-z0-9]{1,32}$")) {
+        if (!isValidUsername(id)) {
             throw new InvalidUserInputException("Username should be less than 32 characters and contain only letters and numbers.");
         }
     }
 
     public static void validateEmail(String email) throws InvalidUserInputException {
-        final String EMAIL_REGEX = "^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+(\\.[a-zA-Z0-9._-]+)*\\.[a-zA-Z]{2,}$";
-        if (!email.matches(EMAIL_REGEX)) {
+        if (!isValidEmail(email)) {
             throw new InvalidUserInputException("Invalid email format. Only letters, digits, and . _ - are allowed. Email must include '@' and a valid domain.");
         }
     }
 
-    public static void validatePatchRequest(Map<String, String> payload) throws InvalidUpdateException {
-        String op = payload.get("op");
-        String path = payload.get("path");
+    /**
+     * Single-pass equivalent of {@code id.matches("^[A-Za-z0-9]{1,32}$")}.
+     */
+    private static boolean isValidUsername(String id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_USERNAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isAsciiLetterOrDigit(id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Single-pass equivalent of
+     * {@code email.matches("^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+(\\.[a-zA-Z0-9._-]+)*\\.[a-zA-Z]{2,}$")}.
+     * Because '.' is itself an allowed domain character, the domain part reduces to: at least one allowed
+     * character, then the last '.', then two or more letters.
+     */
+    private static boolean isValidEmail(String email) {
+        int length = email.length();
+        int at = -1;
+        int lastDot = -1;
 
-        if (!"replace".equalsIgnoreCase(op)) {
-            throw new InvalidUpdateException("Unsupported operation: '" + op + "'. Only 'replace' is allowed.");
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (!isEmailChar(c)) {
+                return false;
+            } else if (c == '.' && at >= 0) {
+                lastDot = i;
+            }
+        }
+
+        // Non-empty local part, non-empty domain before the last dot, and a top-level domain of 2+ letters
+        if (at < 1 || lastDot < at + 2 || length - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!isAsciiLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isEmailChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '.' || c == '_' || c == '-';
+    }
+
+    public static void validatePatchRequest(UserProfilePatchOperation operation) throws InvalidUpdateException {
+        String op = operation.op();
+        String path = operation.path();
+
+        if (!"replace".equalsIgnoreCase(op) && !"test".equalsIgnoreCase(op)) {
+            throw new InvalidUpdateException(
+                    "Unsupported operation: '" + op + "'. Only 'replace' and 'test' are allowed.");
         }
 
         if (!REQUIRED_FIELDS.contains(path)) {
             String allowed = String.join(", ", REQUIRED_FIELDS);
             throw new InvalidUpdateException("Field '" + path + "' cannot be updated. Allowed fields: " + allowed);
         }
+
+        // A replace value must pass the same checks as on create; a test value is only compared
+        if ("replace".equalsIgnoreCase(op)) {
+            validatePatchValue(path, operation.value());
+        }
+    }
+
+    private static void validatePatchValue(String path, String value) throws InvalidUpdateException {
+        if (value == null || value.isBlank()) {
+            throw new InvalidUpdateException("Field '" + path + "' cannot be blank.");
+        }
+        switch (path) {
+            case "username" -> validateUsername(value);
+            case "emailAddress" -> validateEmail(value);
+            default -> {
+            }
+        }
     }
 }
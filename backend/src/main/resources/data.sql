@@ -1,29 +1,32 @@
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('alpha001', 'alpha001@example.com', '101 Alpha St', 'Springfield', 'IL', '62701');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (1, 'alpha001', 'alpha001@example.com', '101 Alpha St', 'Springfield', 'IL', '62701');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('bravo002', 'bravo002@example.com', '202 Bravo Ave', 'Madison', 'WI', '53703');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (2, 'bravo002', 'bravo002@example.com', '202 Bravo Ave', 'Madison', 'WI', '53703');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('charlie003', 'charlie003@example.com', '303 Charlie Blvd', 'Denver', 'CO', '80202');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (3, 'charlie003', 'charlie003@example.com', '303 Charlie Blvd', 'Denver', 'CO', '80202');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('delta004', 'delta004@example.com', '404 Delta Rd', 'Austin', 'TX', '73301');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (4, 'delta004', 'delta004@example.com', '404 Delta Rd', 'Austin', 'TX', '73301');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('echo005', 'echo005@example.com', '505 Echo Ln', 'Raleigh', 'NC', '27601');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (5, 'echo005', 'echo005@example.com', '505 Echo Ln', 'Raleigh', 'NC', '27601');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('foxtrot006', 'foxtrot006@example.com', '606 Foxtrot Ct', 'Albany', 'NY', '12207');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (6, 'foxtrot006', 'foxtrot006@example.com', '606 Foxtrot Ct', 'Albany', 'NY', '12207');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('golf007', 'golf007@example.com', '707 Golf Way', 'Phoenix', 'AZ', '85001');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (7, 'golf007', 'golf007@example.com', '707 Golf Way', 'Phoenix', 'AZ', '85001');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('hotel008', 'hotel008@example.com', '808 Hotel Dr', 'Portland', 'OR', '97201');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (8, 'hotel008', 'hotel008@example.com', '808 Hotel Dr', 'Portland', 'OR', '97201');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('india009', 'india009@example.com', '909 India Pl', 'Boise', 'ID', '83702');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (9, 'india009', 'india009@example.com', '909 India Pl', 'Boise', 'ID', '83702');
 
-INSERT INTO user_profile (username, email_address, street_address, city, state, zip_code)
-VALUES ('juliet010', 'juliet010@example.com', '1001 Juliet Tr', 'Columbus', 'OH', '43085');
+INSERT INTO user_profile (id, username, email_address, street_address, city, state, zip_code)
+VALUES (10, 'juliet010', 'juliet010@example.com', '1001 Juliet Tr', 'Columbus', 'OH', '43085');
+
+-- Seed rows use explicit ids, so start Hibernate's id allocation after them
+ALTER SEQUENCE user_profile_seq RESTART WITH 11;
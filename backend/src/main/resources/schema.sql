@@ -1,9 +1,27 @@
-CREATE TABLE IF NOT EXISTS user_profile (
-    id INT AUTO_INCREMENT PRIMARY KEY,
-    username VARCHAR(255),
-    email_address VARCHAR(255),
-    street_address VARCHAR(255),
-    city VARCHAR(255),
-    state VARCHAR(255),
-    zip_code VARCHAR(20)
+-- Recreated on every startup so the seed data in data.sql always loads into a clean table
+DROP TABLE IF EXISTS user_profile;
+DROP SEQUENCE IF EXISTS user_profile_seq;
+
+-- Hibernate reserves ids 50 at a time from this sequence (pooled-lo), which lets inserts be JDBC-batched
+CREATE SEQUENCE user_profile_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_profile (
+    id BIGINT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    email_address VARCHAR(255) NOT NULL,
+    street_address VARCHAR(255) NOT NULL,
+    city VARCHAR(255) NOT NULL,
+    state VARCHAR(255) NOT NULL,
+    zip_code VARCHAR(20) NOT NULL,
+    -- Optimistic-lock version, bumped on every update; profile ETags are built from id and version
+    version BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_user_profile_username UNIQUE (username)
 );
+
+-- The unique constraint above doubles as the index behind every lookup by username.
+-- Each search column is indexed together with id, so a keyset page (col = ? AND id > ? ORDER BY id)
+-- is read in order straight off the index instead of scanning and sorting the table.
+CREATE INDEX ix_user_profile_email_address ON user_profile (email_address, id);
+CREATE INDEX ix_user_profile_city ON user_profile (city, id);
+CREATE INDEX ix_user_profile_state ON user_profile (state, id);
+CREATE INDEX ix_user_profile_zip_code ON user_profile (zip_code, id);
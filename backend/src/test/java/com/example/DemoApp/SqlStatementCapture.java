@@ -0,0 +1,77 @@
+package com.example.DemoApp;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement Hibernate prepares. Enable it in a test with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.DemoApp.SqlStatementCapture},
+ * then use {@link #during(Runnable)} to assert how many statements an operation issues.
+ */
+public class SqlStatementCapture implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    /**
+     * Runs the action and returns what it prepared. Inserts Hibernate defers until flush are only seen
+     * if the action flushes.
+     */
+    public static Captured during(Runnable action) {
+        clear();
+        action.run();
+        return new Captured(statements());
+    }
+
+    public static String lastSelect() {
+        for (int i = STATEMENTS.size() - 1; i >= 0; i--) {
+            String sql = STATEMENTS.get(i);
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                return sql;
+            }
+        }
+        throw new IllegalStateException("No SELECT statement was captured.");
+    }
+
+    /**
+     * Statements captured while an action ran. Counts leave out sequence calls: pooled-lo fetches a block
+     * of ids only every 50 inserts, so whether one falls inside a test depends on what ran before it.
+     */
+    public record Captured(List<String> statements) {
+
+        public long count() {
+            return statements.stream().filter(sql -> !isSequenceCall(sql)).count();
+        }
+
+        public long count(String verb) {
+            return statements.stream()
+                    .filter(sql -> !isSequenceCall(sql) && sql.regionMatches(true, 0, verb, 0, verb.length()))
+                    .count();
+        }
+
+        private static boolean isSequenceCall(String sql) {
+            return sql.toLowerCase(Locale.ROOT).contains("next value for");
+        }
+
+        @Override
+        public String toString() {
+            return String.join(System.lineSeparator(), statements);
+        }
+    }
+}
@@ -188,6 +188,8 @@ class UserProfileIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$." + path).value(newValue));
 
+        // The PATCH bumped the row's version; take the current one so the original values can be written back
+        sut.setVersion(repository.findViewByUsername(sut.getUsername()).orElseThrow().version());
         repository.saveAndFlush(sut);
     }
 
@@ -220,6 +222,49 @@ class UserProfileIntegrationTest {
         repository.saveAndFlush(sut);
     }
 
+    @Test
+    void testPatchMultipleFields_shouldUpdateAllInOneRequest() throws Exception {
+        String payload = """
+            [
+              { "op": "replace", "path": "city", "value": "Omaha" },
+              { "op": "replace", "path": "state", "value": "NE" },
+              { "op": "replace", "path": "zipCode", "value": "68102" }
+            ]
+            """;
+
+        mockMvc.perform(patch(getUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isOk())
+                .andExpect(content().string("city, state, zipCode updated for user: " + sut.getUsername()));
+
+        mockMvc.perform(get(getUrl))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Omaha"))
+                .andExpect(jsonPath("$.state").value("NE"))
+                .andExpect(jsonPath("$.zipCode").value("68102"));
+    }
+
+    @Test
+    void testPatchMultipleFields_invalidOperation_shouldChangeNothing() throws Exception {
+        String payload = """
+            [
+              { "op": "replace", "path": "city", "value": "Omaha" },
+              { "op": "remove", "path": "state" }
+            ]
+            """;
+
+        mockMvc.perform(patch(getUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unsupported operation: 'remove'. Only 'replace' and 'test' are allowed."));
+
+        mockMvc.perform(get(getUrl))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value(sut.getCity()));
+    }
+
     @Test
     void testPatchUsername_shouldFailExistingUsername() throws Exception {
         Optional<UserProfile> existingUser = repository.findByUsername("ExistingUser");
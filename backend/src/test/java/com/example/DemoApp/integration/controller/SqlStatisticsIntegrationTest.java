@@ -0,0 +1,39 @@
+package com.example.DemoApp.integration.controller;
+
+import com.example.DemoApp.controller.SqlStatisticsInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "demo.sql-statistics.enabled=true")
+@AutoConfigureMockMvc
+class SqlStatisticsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void recordsStatementsPerRequestByUriPattern() throws Exception {
+        // Two different users, so each GET misses the profile cache and runs one SELECT
+        mockMvc.perform(get("/api/v1/demo/users/alpha001")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/demo/users/bravo002")).andExpect(status().isOk());
+
+        DistributionSummary summary = meterRegistry.get(SqlStatisticsInterceptor.METRIC_NAME)
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/demo/users/{username}")
+                .summary();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+}
@@ -2,16 +2,25 @@ package com.example.DemoApp.integration.controller;
 
 import com.example.DemoApp.domain.UserProfile;
 import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileCache;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,12 +35,16 @@ class UserProfileControllerIntegrationTest {
     @Autowired
     private UserProfileRepository repository;
 
+    @Autowired
+    private UserProfileCache profileCache;
+
     @BeforeEach
     void setup() {
         repository.deleteAll();
+        profileCache.invalidateAll();
         repository.saveAll(List.of(
-                new UserProfile(null, "alpha001", "alpha@example.com", "123 Main St", "Chicago", "IL", "60601"),
-                new UserProfile(null, "bravo002", "bravo@example.com", "456 Oak Ave", "Springfield", "IL", "62704")
+                new UserProfile(null, "alpha001", "alpha@example.com", "123 Main St", "Chicago", "IL", "60601", null),
+                new UserProfile(null, "bravo002", "bravo@example.com", "456 Oak Ave", "Springfield", "IL", "62704", null)
         ));
     }
 
@@ -45,6 +58,182 @@ class UserProfileControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].username", is("alpha001")));
     }
 
+    @Test
+    void shouldPageThroughUsersWithCursor() throws Exception {
+        String nextCursor = mockMvc.perform(get("/api/v1/demo/users/").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].username", is("alpha001")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/v1/demo/users/").param("limit", "1").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].username", is("bravo002")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllUsers_invalidCursor_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Invalid page cursor")));
+    }
+
+    @Test
+    void searchUsers_shouldPageThroughMatches() throws Exception {
+        String nextCursor = mockMvc.perform(get("/api/v1/demo/users/_search").param("state", "IL").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].username", is("alpha001")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/v1/demo/users/_search").param("state", "IL").param("limit", "1").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].username", is("bravo002")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void searchUsers_shouldMatchEveryGivenFilter() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_search").param("state", "IL").param("zipCode", "62704"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].username", is("bravo002")));
+
+        mockMvc.perform(get("/api/v1/demo/users/_search").param("city", "Chicago").param("zipCode", "62704"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(0)));
+    }
+
+    @Test
+    void searchUsers_withoutFilters_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_search").param("city", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Provide at least one of emailAddress, city, state or zipCode."));
+    }
+
+    @Test
+    void typeahead_shouldFollowCreatesAndDeletes() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_typeahead").param("prefix", "ALP"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("alpha001")));
+
+        mockMvc.perform(post("/api/v1/demo/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "username": "alphabet9",
+                              "emailAddress": "alphabet@example.com",
+                              "streetAddress": "9 Letter Ln",
+                              "city": "Chicago",
+                              "state": "IL",
+                              "zipCode": "60601"
+                            }
+                            """))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/demo/users/alpha001"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/demo/users/_typeahead").param("prefix", "alpha"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("alphabet9")));
+    }
+
+    @Test
+    void aggregates_shouldFollowCreatesPatchesAndDeletes() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byState.IL").value(2))
+                .andExpect(jsonPath("$.byZip3['606']").value(1))
+                .andExpect(jsonPath("$.byZip3['627']").value(1));
+
+        mockMvc.perform(post("/api/v1/demo/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "username": "charlie003",
+                              "emailAddress": "charlie@example.com",
+                              "streetAddress": "789 Lake Dr",
+                              "city": "Madison",
+                              "state": "WI",
+                              "zipCode": "53703"
+                            }
+                            """))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/v1/demo/users/bravo002")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            [
+                              {"op": "replace", "path": "state", "value": "WI"},
+                              {"op": "replace", "path": "zipCode", "value": "53711"}
+                            ]
+                            """))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/demo/users/alpha001"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/demo/users/_aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byState.WI").value(2))
+                .andExpect(jsonPath("$.byState.IL").doesNotExist())
+                .andExpect(jsonPath("$.byZip3['537']").value(2));
+    }
+
+    @Test
+    void entityUpdate_shouldMoveTypeaheadCountsAndCacheToTheNewValues() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/alpha001"))
+                .andExpect(status().isOk());
+
+        // Saved straight through JPA, the way an import or admin fix would, not through the service
+        UserProfile alpha = repository.findByUsername("alpha001").orElseThrow();
+        alpha.setUsername("alpha777");
+        alpha.setState("WI");
+        alpha.setZipCode("53703");
+        repository.save(alpha);
+
+        mockMvc.perform(get("/api/v1/demo/users/alpha001"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/demo/users/_typeahead").param("prefix", "alpha"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("alpha777")));
+        mockMvc.perform(get("/api/v1/demo/users/_aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byState.IL").value(1))
+                .andExpect(jsonPath("$.byState.WI").value(1))
+                .andExpect(jsonPath("$.byZip3['537']").value(1));
+    }
+
+    @Test
+    void typeahead_blankPrefix_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_typeahead").param("prefix", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Prefix must not be blank."));
+    }
+
+    @Test
+    void exportUsers_shouldStreamOneJsonObjectPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/demo/users/_export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"username\":\"alpha001\""));
+        assertThat(lines[1], containsString("\"username\":\"bravo002\""));
+    }
+
     @Test
     void shouldReturnUserByUsername() throws Exception {
         String username = repository.findAll().get(0).getUsername();
@@ -54,6 +243,98 @@ class UserProfileControllerIntegrationTest {
                 .andExpect(jsonPath("$.emailAddress", is("alpha@example.com")));
     }
 
+    @Test
+    void getUser_ifNoneMatch_shouldReturn304UntilTheProfileChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/demo/users/alpha001"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/demo/users/alpha001").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/api/v1/demo/users/alpha001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"op\": \"replace\", \"path\": \"city\", \"value\": \"Evanston\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/demo/users/alpha001").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.city", is("Evanston")));
+    }
+
+    @Test
+    void patchUser_failingTestOperation_shouldReturn409AndChangeNothing() throws Exception {
+        mockMvc.perform(patch("/api/v1/demo/users/alpha001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            [
+                              {"op": "test", "path": "city", "value": "Evanston"},
+                              {"op": "replace", "path": "city", "value": "Skokie"}
+                            ]
+                            """))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Field 'city' no longer has the value 'Evanston'. Reload and try again."));
+
+        mockMvc.perform(patch("/api/v1/demo/users/alpha001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            [
+                              {"op": "test", "path": "city", "value": "Chicago"},
+                              {"op": "replace", "path": "city", "value": "Skokie"}
+                            ]
+                            """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/demo/users/alpha001"))
+                .andExpect(jsonPath("$.city", is("Skokie")));
+    }
+
+    @Test
+    void getAllUsers_ifNoneMatch_shouldReturn304UntilAnyUserChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/demo/users/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/demo/users/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/api/v1/demo/users/bravo002"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/demo/users/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)));
+    }
+
+    @Test
+    void getUser_acceptCbor_shouldReturnCbor() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/v1/demo/users/alpha001").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT))))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserProfile user = new CBORMapper().readValue(body, UserProfile.class);
+        assertThat(user.getUsername(), is("alpha001"));
+        assertThat(user.getEmailAddress(), is("alpha@example.com"));
+    }
+
+    @Test
+    void getAllUsers_acceptSmile_shouldReturnSmile() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/v1/demo/users/").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-smile\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserProfile[] users = new SmileMapper().readValue(body, UserProfile[].class);
+        assertThat(users.length, is(2));
+        assertThat(users[1].getUsername(), is("bravo002"));
+    }
+
     @Test
     void getUser_invalidUsernameFormat_shouldReturn400() throws Exception {
         mockMvc.perform(get("/api/v1/demo/users/abc$_"))
@@ -89,6 +370,91 @@ class UserProfileControllerIntegrationTest {
                 .andExpect(content().string(containsString("created successfully")));
     }
 
+    @Test
+    void createUsersInBulk_shouldReportEachItem() throws Exception {
+        String json = """
+            [
+              {"username": "charlie003", "emailAddress": "charlie@example.com", "streetAddress": "789 Pine Rd",
+               "city": "Naperville", "state": "IL", "zipCode": "60540"},
+              {"username": "alpha001", "emailAddress": "alpha@example.com", "streetAddress": "123 Main St",
+               "city": "Chicago", "state": "IL", "zipCode": "60601"},
+              {"username": "delta004", "emailAddress": "not-an-email", "streetAddress": "1 Delta Rd",
+               "city": "Austin", "state": "TX", "zipCode": "73301"},
+              {"username": "charlie003", "emailAddress": "again@example.com", "streetAddress": "1 Other St",
+               "city": "Naperville", "state": "IL", "zipCode": "60540"}
+            ]
+            """;
+
+        mockMvc.perform(post("/api/v1/demo/users/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(4)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$[2].status", is("INVALID")))
+                .andExpect(jsonPath("$[2].message", containsString("Invalid email format")))
+                .andExpect(jsonPath("$[3].status", is("DUPLICATE")));
+
+        mockMvc.perform(get("/api/v1/demo/users/charlie003"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.emailAddress", is("charlie@example.com")));
+    }
+
+    @Test
+    void importUsersFromCsv_shouldInsertValidRowsAndReportRejects() throws Exception {
+        String csv = """
+            username,emailAddress,streetAddress,city,state,zipCode
+            charlie003,charlie@example.com,"789 Pine Rd, Apt 2",Naperville,IL,60540
+            delta004,not-an-email,1 Delta Rd,Austin,TX,73301
+            alpha001,alpha@example.com,123 Main St,Chicago,IL,60601
+            echo005,echo@example.com,5 Echo Ln,Raleigh,NC,27601
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        String location = mockMvc.perform(multipart("/api/v1/demo/users/_import").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getHeader("Location");
+
+        String state = "RUNNING";
+        for (int attempt = 0; attempt < 100 && state.equals("RUNNING"); attempt++) {
+            Thread.sleep(50);
+            state = JsonPath.read(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.state");
+        }
+
+        mockMvc.perform(get(location))
+                .andExpect(jsonPath("$.state", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsRead", is(4)))
+                .andExpect(jsonPath("$.rowsInserted", is(2)))
+                .andExpect(jsonPath("$.rowsRejected", is(2)))
+                .andExpect(jsonPath("$.progressPercent", is(100.0)));
+
+        mockMvc.perform(get("/api/v1/demo/users/charlie003"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.streetAddress", is("789 Pine Rd, Apt 2")));
+    }
+
+    @Test
+    void importUsersFromCsv_missingHeaderColumn_shouldReturn400() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv",
+                "username,emailAddress\nfoo,foo@example.com\n".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/api/v1/demo/users/_import").file(file))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("CSV header is missing required column: streetAddress"));
+    }
+
+    @Test
+    void getImportStatus_unknownJob_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/v1/demo/users/_import/nope"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void createUser_missingUsername_shouldReturn400() throws Exception {
         String json = """
@@ -1,14 +1,23 @@
 package com.example.DemoApp.integration.repository;
 
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileView;
+import com.example.DemoApp.repository.PortableUserProfileWrites;
 import com.example.DemoApp.repository.UserProfileRepository;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class UserProfileDatabaseTest {
@@ -16,9 +25,95 @@ class UserProfileDatabaseTest {
     @Autowired
     private UserProfileRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void testH2DatabaseSeededWithTenProfiles() {
         List<UserProfile> users = repository.findAll();
         assertEquals(10, users.size(), "Expected exactly 10 seeded user profiles.");
     }
+
+    @Test
+    void testFindViewByUsername_matchesEntity_andIsNotManaged() {
+        entityManager.clear();
+        UserProfileView view = repository.findViewByUsername("alpha001").orElseThrow();
+
+        // The projection query must not have put any entity into the persistence context
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+        assertEquals(UserProfileView.of(repository.findByUsername("alpha001").orElseThrow()), view);
+        assertTrue(repository.findViewByUsername("nobody").isEmpty());
+    }
+
+    @Test
+    void testFindViewsByIdGreaterThan_returnsKeysetPageInIdOrder() {
+        List<UserProfileView> first = repository.findViewsByIdGreaterThan(0L, Limit.of(4));
+        List<UserProfileView> next = repository.findViewsByIdGreaterThan(first.get(3).id(), Limit.of(100));
+
+        assertEquals(4, first.size());
+        assertEquals(6, next.size());
+        assertTrue(first.get(0).id() < first.get(3).id() && first.get(3).id() < next.get(0).id());
+    }
+
+    @Test
+    void testUpdateByUsername_changesOnlyGivenColumns_andReturnsPreviousLocation() {
+        Optional<UserProfileLocation> previous = repository.updateByUsername("alpha001", null, null, null, "Omaha", "NE", null);
+
+        assertEquals(Optional.of(new UserProfileLocation("IL", "62701")), previous);
+        UserProfile user = repository.findByUsername("alpha001").orElseThrow();
+        assertEquals("Omaha", user.getCity());
+        assertEquals("NE", user.getState());
+        assertNotNull(user.getZipCode());
+    }
+
+    @Test
+    void testUpdateByUsername_missingUser_returnsEmpty() {
+        assertTrue(repository.updateByUsername("nobody", null, null, null, "Omaha", null, null).isEmpty());
+    }
+
+    @Test
+    void testDeleteByUsername_returnsDeletedLocation() {
+        assertEquals(Optional.of(new UserProfileLocation("IL", "62701")), repository.deleteByUsername("alpha001"));
+        assertTrue(repository.deleteByUsername("alpha001").isEmpty());
+        assertTrue(repository.findByUsername("alpha001").isEmpty());
+    }
+
+    @Test
+    void testPortableWrites_matchTheH2Path() {
+        PortableUserProfileWrites writes = new PortableUserProfileWrites(entityManager.getEntityManager());
+        long version = repository.findViewByUsername("alpha001").orElseThrow().version();
+
+        assertEquals(Optional.of(new UserProfileLocation("IL", "62701")),
+                writes.updateByUsername("alpha001", null, null, null, "Omaha", "NE", null));
+        UserProfileView updated = repository.findViewByUsername("alpha001").orElseThrow();
+        assertEquals("Omaha", updated.city());
+        assertEquals("NE", updated.state());
+        assertEquals("alpha001@example.com", updated.emailAddress());
+        assertEquals(version + 1, updated.version());
+        assertTrue(writes.updateByUsername("nobody", null, null, null, "Omaha", null, null).isEmpty());
+    }
+
+    @Test
+    void testPortableWrites_conditionalUpdateAndDelete() {
+        PortableUserProfileWrites writes = new PortableUserProfileWrites(entityManager.getEntityManager());
+        long version = repository.findViewByUsername("alpha001").orElseThrow().version();
+
+        assertTrue(writes.updateByUsernameAndVersion("alpha001", version + 1, null, null, null, "Omaha", null, null)
+                .isEmpty());
+        assertEquals(Optional.of(new UserProfileLocation("IL", "62701")),
+                writes.updateByUsernameAndVersion("alpha001", version, null, null, null, "Omaha", null, null));
+        assertEquals(Optional.of(new UserProfileLocation("IL", "62701")), writes.deleteByUsername("alpha001"));
+        assertTrue(writes.deleteByUsername("alpha001").isEmpty());
+        assertTrue(repository.findByUsername("alpha001").isEmpty());
+    }
+
+    @Test
+    void testCountByStateAndZip3_coverEverySeededProfile() {
+        long byState = repository.countByState().stream().mapToLong(row -> (Long) row[1]).sum();
+        long byZip3 = repository.countByZip3().stream().mapToLong(row -> (Long) row[1]).sum();
+
+        assertEquals(10, byState);
+        assertEquals(10, byZip3);
+        assertTrue(repository.countByZip3().stream().allMatch(row -> ((String) row[0]).length() == 3));
+    }
 }
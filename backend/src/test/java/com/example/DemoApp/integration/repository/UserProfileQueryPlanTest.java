@@ -0,0 +1,113 @@
+package com.example.DemoApp.integration.repository;
+
+import com.example.DemoApp.SqlStatementCapture;
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileSearch;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.repository.UserProfileSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the repository's lookups, then asks H2 to EXPLAIN the exact SQL Hibernate sent, so a missing
+ * or unusable index shows up as a failing test instead of a slow endpoint.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.DemoApp.SqlStatementCapture")
+class UserProfileQueryPlanTest {
+
+    @Autowired
+    private UserProfileRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void clearCapturedSql() {
+        SqlStatementCapture.clear();
+    }
+
+    @Test
+    void findByUsername_usesUniqueIndex() {
+        repository.findByUsername("alpha001");
+
+        assertThat(explainLastSelect("alpha001")).containsIgnoringCase("UK_USER_PROFILE_USERNAME");
+    }
+
+    @Test
+    void findViewByUsername_usesUniqueIndex() {
+        repository.findViewByUsername("alpha001");
+
+        assertThat(explainLastSelect("alpha001")).containsIgnoringCase("UK_USER_PROFILE_USERNAME");
+    }
+
+    @Test
+    void searchByEmail_usesEmailIndex() {
+        search(new UserProfileSearch("alpha@example.com", null, null, null));
+
+        assertThat(explainLastSelect("alpha@example.com", 0L)).containsIgnoringCase("IX_USER_PROFILE_EMAIL_ADDRESS");
+    }
+
+    @Test
+    void searchByCity_usesCityIndex() {
+        search(new UserProfileSearch(null, "Chicago", null, null));
+
+        assertThat(explainLastSelect("Chicago", 0L)).containsIgnoringCase("IX_USER_PROFILE_CITY");
+    }
+
+    @Test
+    void searchByState_usesStateIndex() {
+        search(new UserProfileSearch(null, null, "IL", null));
+
+        assertThat(explainLastSelect("IL", 0L)).containsIgnoringCase("IX_USER_PROFILE_STATE");
+    }
+
+    @Test
+    void searchByZipCode_usesZipCodeIndex() {
+        search(new UserProfileSearch(null, null, null, "60601"));
+
+        assertThat(explainLastSelect("60601", 0L)).containsIgnoringCase("IX_USER_PROFILE_ZIP_CODE");
+    }
+
+    @Test
+    void searchByCombination_usesASecondaryIndex() {
+        search(new UserProfileSearch(null, "Chicago", "IL", "60601"));
+
+        assertThat(explainLastSelect("Chicago", "IL", "60601", 0L))
+                .containsIgnoringCase("IX_USER_PROFILE_")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    private List<UserProfile> search(UserProfileSearch search) {
+        return repository.findBy(UserProfileSpecifications.matching(search, 0L),
+                query -> query.sortBy(Sort.by("id")).limit(11).all());
+    }
+
+    // Binds the given values in order; any remaining parameter is the row limit
+    private String explainLastSelect(Object... values) {
+        String sql = SqlStatementCapture.lastSelect();
+        return new JdbcTemplate(dataSource).execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = explain.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    explain.setObject(i, i <= values.length ? values[i - 1] : 11);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.DemoApp.integration.service;
+
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileView;
+import com.example.DemoApp.exception.UserUpdateConflictException;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads patching one hot profile through the real service and database. Every write must
+ * survive: compare-and-set increments via test + replace never lose a step, and blind patches to
+ * different fields never overwrite each other.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class UserProfileConcurrencyStressTest {
+
+    private static final int THREADS = 16;
+    private static final int INCREMENTS_PER_THREAD = 25;
+
+    @Autowired
+    private UserProfileService service;
+
+    @Autowired
+    private UserProfileRepository repository;
+
+    @Test
+    void conditionalIncrementsOnAHotProfile_loseNoUpdates() throws Exception {
+        createUser("hotspot001", "0");
+        long versionBefore = current("hotspot001").version();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                while (true) {
+                    String seen = current("hotspot001").city();
+                    try {
+                        service.updateUserProfile("hotspot001", List.of(
+                                UserProfilePatchOperation.test("city", seen),
+                                UserProfilePatchOperation.replace("city", String.valueOf(Integer.parseInt(seen) + 1))));
+                        break;
+                    } catch (UserUpdateConflictException ex) {
+                        // Another thread got there first; read the new value and try again
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        UserProfileView after = current("hotspot001");
+        assertThat(after.city()).isEqualTo(String.valueOf(THREADS * INCREMENTS_PER_THREAD));
+        assertThat(after.version()).isEqualTo(versionBefore + THREADS * INCREMENTS_PER_THREAD);
+        assertThat(conflicts.get()).as("contention should actually have happened").isPositive();
+    }
+
+    @Test
+    void blindPatchesToDifferentFields_allSurvive() throws Exception {
+        createUser("hotspot002", "Start");
+        long versionBefore = current("hotspot002").version();
+        List<String> fields = List.of("emailAddress", "streetAddress", "city", "zipCode");
+
+        runConcurrently(fields.size(), thread -> {
+            String field = fields.get(thread);
+            for (int i = 1; i <= INCREMENTS_PER_THREAD; i++) {
+                assertThat(service.updateUserProfile("hotspot002",
+                        UserProfilePatchOperation.replace(field, valueFor(field, i))).getStatusCode())
+                        .isEqualTo(HttpStatus.OK);
+            }
+        });
+
+        UserProfileView after = current("hotspot002");
+        assertThat(after.emailAddress()).isEqualTo(valueFor("emailAddress", INCREMENTS_PER_THREAD));
+        assertThat(after.streetAddress()).isEqualTo(valueFor("streetAddress", INCREMENTS_PER_THREAD));
+        assertThat(after.city()).isEqualTo(valueFor("city", INCREMENTS_PER_THREAD));
+        assertThat(after.zipCode()).isEqualTo(valueFor("zipCode", INCREMENTS_PER_THREAD));
+        assertThat(after.version()).isEqualTo(versionBefore + (long) fields.size() * INCREMENTS_PER_THREAD);
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts every worker at once and rethrows the first failure
+    private static void runConcurrently(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void createUser(String username, String city) {
+        service.createUserProfile(new UserProfileCreateRequest(
+                username, username + "@example.com", "1 Hot St", city, "NE", "68102"));
+    }
+
+    private UserProfileView current(String username) {
+        return repository.findViewByUsername(username).orElseThrow();
+    }
+
+    private static String valueFor(String field, int i) {
+        return switch (field) {
+            case "emailAddress" -> "hot" + i + "@example.com";
+            case "streetAddress" -> i + " Hot St";
+            case "zipCode" -> String.valueOf(68100 + i);
+            default -> "City " + i;
+        };
+    }
+}
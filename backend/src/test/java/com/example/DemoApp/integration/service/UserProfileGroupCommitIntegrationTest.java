@@ -0,0 +1,98 @@
+package com.example.DemoApp.integration.service;
+
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.exception.UserAlreadyExistsException;
+import com.example.DemoApp.exception.UserNotFoundException;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileGroupCommitter;
+import com.example.DemoApp.service.UserProfileService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"demo.group-commit.enabled=true", "demo.group-commit.max-wait=50ms"})
+class UserProfileGroupCommitIntegrationTest {
+
+    private static final int WRITERS = 16;
+
+    @Autowired
+    private UserProfileService service;
+
+    @Autowired
+    private UserProfileRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentCreates_shareCommits_andADuplicateFailsAlone() throws Exception {
+        DistributionSummary batches = meterRegistry.get(UserProfileGroupCommitter.BATCH_SIZE_METRIC).summary();
+        long batchesBefore = batches.count();
+
+        List<Callable<ResponseEntity<?>>> writes = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            String username = "group" + i;
+            String streetAddress = i + " Batch St";
+            writes.add(() -> service.createUserProfile(new UserProfileCreateRequest(
+                    username, username + "@example.com", streetAddress, "Omaha", "NE", "68102")));
+        }
+        // Same username as an existing profile: only this write may fail
+        writes.add(() -> service.createUserProfile(new UserProfileCreateRequest(
+                "alpha001", "dupe@example.com", "1 Dupe St", "Omaha", "NE", "68102")));
+        List<Future<ResponseEntity<?>>> results = runConcurrently(writes);
+
+        for (int i = 0; i < WRITERS; i++) {
+            assertThat(results.get(i).get().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(repository.existsByUsername("group" + i)).isTrue();
+        }
+        assertThatThrownBy(() -> results.get(WRITERS).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+        assertThat(batches.count() - batchesBefore).isLessThan(WRITERS + 1);
+    }
+
+    @Test
+    void patches_areDurableWhenTheyReturn() throws Exception {
+        List<Callable<ResponseEntity<?>>> writes = List.of(
+                () -> service.updateUserProfile("alpha001", UserProfilePatchOperation.replace("city", "Lincoln")),
+                () -> service.updateUserProfile("bravo002", UserProfilePatchOperation.replace("city", "Kearney")));
+
+        for (Future<ResponseEntity<?>> result : runConcurrently(writes)) {
+            assertThat(result.get().getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        assertThat(repository.findViewByUsername("alpha001").orElseThrow().city()).isEqualTo("Lincoln");
+        assertThat(repository.findViewByUsername("bravo002").orElseThrow().city()).isEqualTo("Kearney");
+        assertThatThrownBy(() ->
+                service.updateUserProfile("nobody999", UserProfilePatchOperation.replace("city", "Nowhere")))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    private static List<Future<ResponseEntity<?>>> runConcurrently(List<Callable<ResponseEntity<?>>> writes)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(writes.size());
+        try {
+            List<Future<ResponseEntity<?>>> results = executor.invokeAll(writes);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
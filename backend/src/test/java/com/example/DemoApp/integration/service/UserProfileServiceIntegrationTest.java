@@ -1,10 +1,28 @@
 package com.example.DemoApp.integration.service;
 
+import com.example.DemoApp.SqlStatementCapture;
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileSearch;
 import com.example.DemoApp.exception.InvalidUpdateException;
 import com.example.DemoApp.exception.UserNotFoundException;
+import com.example.DemoApp.exception.UserUpdateConflictException;
 import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileCache;
+import com.example.DemoApp.service.UserProfileCacheProperties;
+import com.example.DemoApp.service.UserProfileChangeCounter;
+import com.example.DemoApp.service.UserProfileLocationCounts;
+import com.example.DemoApp.service.UserProfilePageProperties;
 import com.example.DemoApp.service.UserProfileService;
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTypeaheadProperties;
+import com.example.DemoApp.service.UserProfileUsernameIndex;
+import com.example.DemoApp.service.UserProfileUsernameFilter;
+import com.example.DemoApp.service.UserProfileUsernameFilterProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -12,33 +30,58 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.DemoApp.SqlStatementCapture")
 class UserProfileServiceIntegrationTest {
 
     @Autowired
     private UserProfileRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private UserProfileService service;
 
     @BeforeEach
     void setUp() {
-        service = new UserProfileService(repository);
+        UserProfileCache cache = new UserProfileCache(objectMapper, new SimpleMeterRegistry(),
+                new UserProfileCacheProperties(true, 100, Duration.ofMinutes(10)));
+        UserProfileUsernameFilter usernameFilter = new UserProfileUsernameFilter(repository,
+                new UserProfileUsernameFilterProperties(true, 1000, 0.01, DataSize.ofKilobytes(64)),
+                new SimpleMeterRegistry());
+        usernameFilter.loadExistingUsernames();
+        UserProfileUsernameIndex usernameIndex = new UserProfileUsernameIndex(repository,
+                new UserProfileTypeaheadProperties(10, 50), new SimpleMeterRegistry());
+        usernameIndex.loadExistingUsernames();
+        UserProfileLocationCounts locationCounts = new UserProfileLocationCounts(repository, new SimpleMeterRegistry());
+        locationCounts.loadCounts();
+        service = new UserProfileService(repository, cache, new UserProfilePageProperties(50, 500),
+                usernameFilter, usernameIndex, locationCounts, new UserProfileChangeCounter(),
+                new UserProfileTimings(new SimpleMeterRegistry()), new TransactionTemplate(transactionManager));
     }
 
     // GET tests
 
     @Test
-    void testGetUserProfile_validIds_shouldReturnCorrectData() {
+    void testGetUserProfile_validIds_shouldReturnCorrectData() throws Exception {
         ResponseEntity<?> response1 = service.getUserProfile("alpha001");
         ResponseEntity<?> response2 = service.getUserProfile("bravo002");
         ResponseEntity<?> response3 = service.getUserProfile("charlie003");
@@ -46,13 +89,13 @@ class UserProfileServiceIntegrationTest {
         assertEquals(HttpStatus.OK, response1.getStatusCode());
         assertEquals(HttpStatus.OK, response2.getStatusCode());
         assertEquals(HttpStatus.OK, response3.getStatusCode());
-        assertInstanceOf(UserProfile.class, response1.getBody());
-        assertInstanceOf(UserProfile.class, response2.getBody());
-        assertInstanceOf(UserProfile.class, response3.getBody());
-        assertEquals(1L, ((UserProfile) response1.getBody()).getId());
+        assertInstanceOf(byte[].class, response1.getBody());
+        assertInstanceOf(byte[].class, response2.getBody());
+        assertInstanceOf(byte[].class, response3.getBody());
+        assertEquals(1L, objectMapper.readValue((byte[]) response1.getBody(), UserProfile.class).getId());
 
-        assertEquals(2L, ((UserProfile) response2.getBody()).getId());
-        assertEquals(3L, ((UserProfile) response3.getBody()).getId());
+        assertEquals(2L, objectMapper.readValue((byte[]) response2.getBody(), UserProfile.class).getId());
+        assertEquals(3L, objectMapper.readValue((byte[]) response3.getBody(), UserProfile.class).getId());
     }
 
     @Test
@@ -73,7 +116,7 @@ class UserProfileServiceIntegrationTest {
 
     @Test
     void shouldReturnAllUsersSuccessfully() {
-        ResponseEntity<?> response = service.getAllUsers();
+        ResponseEntity<?> response = service.getAllUsers(null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertInstanceOf(List.class, response.getBody());
@@ -86,16 +129,16 @@ class UserProfileServiceIntegrationTest {
 
     @Test
     void testCreateUserProfile_shouldPersistNewUser() {
-        var payload = Map.of(
-                "username", "zulu011",
-                "emailAddress", "zulu011@example.com",
-                "streetAddress", "1111 Zulu St",
-                "city", "Fleetwood",
-                "state", "PA",
-                "zipCode", "19522"
+        var request = new UserProfileCreateRequest(
+                "zulu011",
+                "zulu011@example.com",
+                "1111 Zulu St",
+                "Fleetwood",
+                "PA",
+                "19522"
         );
 
-        ResponseEntity<String> response = service.createUserProfile(payload);
+        ResponseEntity<String> response = service.createUserProfile(request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody().startsWith("New user ID"));
@@ -113,13 +156,7 @@ class UserProfileServiceIntegrationTest {
             "zipCode, 99999"
     })
     void testUpdateUserProfile_shouldUpdateField(String path, String value) {
-        Map<String, String> payload = Map.of(
-                "op", "replace",
-                "path", path,
-                "value", value
-        );
-
-        ResponseEntity<?> response = service.updateUserProfile("alpha001", payload);
+        ResponseEntity<?> response = service.updateUserProfile("alpha001", UserProfilePatchOperation.replace(path, value));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(path + " updated for user: alpha001", response.getBody());
@@ -140,11 +177,7 @@ class UserProfileServiceIntegrationTest {
 
     @Test
     void testUpdateUserProfile_nonExistentId_shouldReturn404() {
-        Map<String, String> updatePayload = Map.of(
-                "op", "replace",
-                "path", "city",
-                "value", "Ghosttown"
-        );
+        UserProfilePatchOperation updatePayload = UserProfilePatchOperation.replace("city", "Ghosttown");
 
         UserNotFoundException ex = assertThrows(UserNotFoundException.class, () ->
                 service.updateUserProfile("aeiou", updatePayload)
@@ -154,11 +187,7 @@ class UserProfileServiceIntegrationTest {
 
     @Test
     void testUpdateUserProfile_invalidField_shouldThrowInvalidUpdateException() {
-        Map<String, String> updatePayload = Map.of(
-                "op", "replace",
-                "path", "unknownField",
-                "value", "SomeValue"
-        );
+        UserProfilePatchOperation updatePayload = UserProfilePatchOperation.replace("unknownField", "SomeValue");
 
         InvalidUpdateException ex = assertThrows(InvalidUpdateException.class, () ->
                 service.updateUserProfile("alpha001", updatePayload)
@@ -167,6 +196,33 @@ class UserProfileServiceIntegrationTest {
         assertEquals("Field 'unknownField' cannot be updated.", ex.getMessage());
     }
 
+    @Test
+    void testUpdateUserProfile_passingTest_shouldUpdateAndBumpVersion() {
+        long versionBefore = repository.findById(1L).orElseThrow().getVersion();
+
+        ResponseEntity<?> response = service.updateUserProfile("alpha001", List.of(
+                UserProfilePatchOperation.test("city", repository.findById(1L).orElseThrow().getCity()),
+                UserProfilePatchOperation.replace("city", "Gotham")));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        entityManager.clear();
+        UserProfile user = repository.findById(1L).orElseThrow();
+        assertEquals("Gotham", user.getCity());
+        assertEquals(versionBefore + 1, user.getVersion());
+    }
+
+    @Test
+    void testUpdateUserProfile_failingTest_shouldThrowConflictAndLeaveRowAlone() {
+        String cityBefore = repository.findById(1L).orElseThrow().getCity();
+
+        assertThrows(UserUpdateConflictException.class, () -> service.updateUserProfile("alpha001", List.of(
+                UserProfilePatchOperation.test("city", "Not " + cityBefore),
+                UserProfilePatchOperation.replace("city", "Gotham"))));
+
+        entityManager.clear();
+        assertEquals(cityBefore, repository.findById(1L).orElseThrow().getCity());
+    }
+
     // DELETE tests
 
     @Test
@@ -188,4 +244,77 @@ class UserProfileServiceIntegrationTest {
                 service.deleteUserProfile("999")
         );
     }
+
+    // SQL statement counts; a failure message lists the statements that were issued
+
+    @Test
+    void getUserProfile_issuesOneSelect_thenServesRepeatsFromCache() {
+        SqlStatementCapture.Captured first = SqlStatementCapture.during(() -> service.getUserProfile("alpha001"));
+        SqlStatementCapture.Captured repeat = SqlStatementCapture.during(() -> service.getUserProfile("alpha001"));
+
+        assertEquals(1, first.count(), first::toString);
+        assertEquals(1, first.count("select"), first::toString);
+        assertEquals(0, repeat.count(), repeat::toString);
+    }
+
+    @Test
+    void getAllUsers_issuesOneSelectAndNoCount() {
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() -> service.getAllUsers(null, 5));
+
+        assertEquals(1, sql.count(), sql::toString);
+    }
+
+    @Test
+    void searchUsers_issuesOneSelect() {
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() ->
+                service.searchUsers(new UserProfileSearch(null, "Springfield", null, null), null, null));
+
+        assertEquals(1, sql.count(), sql::toString);
+    }
+
+    @Test
+    void searchUsers_attachesNoEntitiesToThePersistenceContext() {
+        entityManager.clear();
+
+        service.searchUsers(new UserProfileSearch(null, "Springfield", null, null), null, null);
+
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void createUserProfile_newUsername_issuesOnlyTheInsert() {
+        var request = new UserProfileCreateRequest(
+                "zulu012", "zulu012@example.com", "1212 Zulu St", "Fleetwood", "PA", "19522");
+
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() -> {
+            service.createUserProfile(request);
+            entityManager.flush();
+        });
+
+        assertEquals(1, sql.count(), sql::toString);
+        assertEquals(1, sql.count("insert"), sql::toString);
+    }
+
+    @Test
+    void updateUserProfile_issuesOneStatementWithoutReadingTheRow() {
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() -> service.updateUserProfile("alpha001",
+                List.of(UserProfilePatchOperation.replace("city", "Gotham"), UserProfilePatchOperation.replace("state", "NY"))));
+
+        assertEquals(1, sql.count(), sql::toString);
+    }
+
+    @Test
+    void updateUserProfile_withTest_issuesOneReadAndOneConditionalUpdate() {
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() -> service.updateUserProfile("alpha001",
+                List.of(UserProfilePatchOperation.test("username", "alpha001"), UserProfilePatchOperation.replace("city", "Gotham"))));
+
+        assertEquals(2, sql.count(), sql::toString);
+    }
+
+    @Test
+    void deleteUserProfile_issuesOneStatement() {
+        SqlStatementCapture.Captured sql = SqlStatementCapture.during(() -> service.deleteUserProfile("alpha001"));
+
+        assertEquals(1, sql.count(), sql::toString);
+    }
 }
@@ -3,11 +3,23 @@ package com.example.DemoApp.unit.controller;
 import com.example.DemoApp.TestData;
 import com.example.DemoApp.controller.UserProfileController;
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileSearch;
 import com.example.DemoApp.exception.UserNotFoundException;
+import com.example.DemoApp.service.UserProfileBulkService;
+import com.example.DemoApp.service.UserProfileExportService;
+import com.example.DemoApp.service.UserProfileFormat;
+import com.example.DemoApp.service.UserProfileImportService;
 import com.example.DemoApp.service.UserProfileService;
+import com.example.DemoApp.service.UserProfileTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +28,6 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.net.URI;
 import java.util.List;
-import java.util.Map;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -31,6 +42,24 @@ class UserProfileControllerUnitTest {
     @MockitoBean
     private UserProfileService userProfileService;
 
+    @MockitoBean
+    private UserProfileExportService userProfileExportService;
+
+    @MockitoBean
+    private UserProfileBulkService userProfileBulkService;
+
+    @MockitoBean
+    private UserProfileImportService userProfileImportService;
+
+    // Real timings so the validation the controller runs inside them still happens
+    @TestConfiguration
+    static class TimingsConfig {
+        @Bean
+        UserProfileTimings userProfileTimings() {
+            return new UserProfileTimings(new SimpleMeterRegistry());
+        }
+    }
+
     private static final String VALID_USER_JSON = """
             {
               "username": "TestUser3",
@@ -80,7 +109,7 @@ class UserProfileControllerUnitTest {
                 .zipCode("12345")
                 .build();
 
-        when(userProfileService.getUserProfile("1"))
+        when(userProfileService.getUserProfile("1", null, UserProfileFormat.JSON))
                 .thenAnswer(x -> ResponseEntity.status(HttpStatus.OK).body(user));
 
         mockMvc.perform(get("/api/v1/demo/users/1"))
@@ -93,9 +122,31 @@ class UserProfileControllerUnitTest {
                 .andExpect(jsonPath("$.zipCode").value("12345"));
     }
 
+    @Test
+    void testGetUserProfile_passesIfNoneMatchToService() throws Exception {
+        when(userProfileService.getUserProfile("TestUser1", "\"1-0\"", UserProfileFormat.JSON))
+                .thenAnswer(x -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"1-0\"").build());
+
+        mockMvc.perform(get("/api/v1/demo/users/TestUser1").header(HttpHeaders.IF_NONE_MATCH, "\"1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetUserProfile_negotiatesFormatFromAccept() throws Exception {
+        when(userProfileService.getUserProfile("TestUser1", null, UserProfileFormat.SMILE))
+                .thenAnswer(x -> ResponseEntity.ok().contentType(UserProfileFormat.SMILE.mediaType()).body(new byte[]{1}));
+
+        mockMvc.perform(get("/api/v1/demo/users/TestUser1")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserProfileFormat.SMILE.mediaType()));
+    }
+
     @Test
     void testGetUserProfileNotFound_id3() throws Exception {
-        when(userProfileService.getUserProfile("3"))
+        when(userProfileService.getUserProfile("3", null, UserProfileFormat.JSON))
                 .thenAnswer(x -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("That user does not exist. Please try again."));
 
@@ -106,7 +157,7 @@ class UserProfileControllerUnitTest {
 
     @Test
     void testGetUserProfileInvalidUsernameFormat() throws Exception {
-        when(userProfileService.getUserProfile("banana^"))
+        when(userProfileService.getUserProfile("banana^", null, UserProfileFormat.JSON))
                 .thenAnswer(x -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body("Only numbers are supported for user lookup & should be less than 12 digits."));
 
@@ -119,7 +170,7 @@ class UserProfileControllerUnitTest {
     void shouldReturnAllUsers() throws Exception {
         List<UserProfile> mockUsers = TestData.provideUserProfiles();
 
-        when(userProfileService.getAllUsers()).thenAnswer(x -> ResponseEntity.ok(mockUsers));
+        when(userProfileService.getAllUsers(null, null, null, UserProfileFormat.JSON)).thenAnswer(x -> ResponseEntity.ok(mockUsers));
 
         mockMvc.perform(get("/api/v1/demo/users/")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -130,17 +181,33 @@ class UserProfileControllerUnitTest {
                 .andExpect(jsonPath("$[2].city").value("Naperville"));
     }
 
+    @Test
+    void shouldSearchUsersByGivenFilters() throws Exception {
+        List<UserProfile> mockUsers = TestData.provideUserProfiles();
+
+        when(userProfileService.searchUsers(new UserProfileSearch(null, "Chicago", "IL", null), null, 10))
+                .thenAnswer(x -> ResponseEntity.ok(mockUsers.subList(0, 1)));
+
+        mockMvc.perform(get("/api/v1/demo/users/_search")
+                        .param("city", "Chicago")
+                        .param("state", "IL")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].city").value("Chicago"));
+    }
+
     // POST tests
 
     @Test
     void testCreateUserProfile_success() throws Exception {
-        when(userProfileService.createUserProfile(Map.of(
-                "username", "TestUser3",
-                "emailAddress", "testuser3@apidemo.com",
-                "streetAddress", "7890 Elm St",
-                "city", "Newtown",
-                "state", "CA",
-                "zipCode", "90210"
+        when(userProfileService.createUserProfile(new UserProfileCreateRequest(
+                "TestUser3",
+                "testuser3@apidemo.com",
+                "7890 Elm St",
+                "Newtown",
+                "CA",
+                "90210"
         ))).thenReturn(ResponseEntity.ok("New user ID 11 created successfully."));
 
         mockMvc.perform(post(URI.create("/api/v1/demo/users"))
@@ -164,11 +231,7 @@ class UserProfileControllerUnitTest {
 
     @Test
     void testUpdateUserProfile_shouldReturn200WhenSuccessful() throws Exception {
-        Map<String, String> updatePayload = Map.of(
-                "op", "replace",
-                "path", "streetAddress",
-                "value", "0987 Main St"
-        );
+        List<UserProfilePatchOperation> updatePayload = List.of(UserProfilePatchOperation.replace("streetAddress", "0987 Main St"));
 
         when(userProfileService.updateUserProfile("10", updatePayload))
                 .thenAnswer(x -> ResponseEntity.ok("streetAddress updated for user ID 10"));
@@ -182,11 +245,7 @@ class UserProfileControllerUnitTest {
 
     @Test
     void testUpdateUserProfile_userNotFound_shouldReturn404() throws Exception {
-        Map<String, String> updatePayload = Map.of(
-                "op", "replace",
-                "path", "state",
-                "value", "NE"
-        );
+        List<UserProfilePatchOperation> updatePayload = List.of(UserProfilePatchOperation.replace("state", "NE"));
 
         when(userProfileService.updateUserProfile("999", updatePayload))
                 .thenAnswer(x -> ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -201,11 +260,7 @@ class UserProfileControllerUnitTest {
 
     @Test
     void testUpdateUserProfile_invalidField_shouldReturn400() throws Exception {
-        Map<String, String> updatePayload = Map.of(
-                "op", "replace",
-                "path", "fakeField",
-                "value", "oops"
-        );
+        List<UserProfilePatchOperation> updatePayload = List.of(UserProfilePatchOperation.replace("fakeField", "oops"));
 
         when(userProfileService.updateUserProfile("1", updatePayload))
                 .thenAnswer(x -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -218,6 +273,37 @@ class UserProfileControllerUnitTest {
                 .andExpect(content().string("Field 'fakeField' cannot be updated. Allowed fields: username, emailAddress, streetAddress, city, state, zipCode"));
     }
 
+    @Test
+    void testUpdateUserProfile_multipleOperations_shouldReturn200WhenSuccessful() throws Exception {
+        List<UserProfilePatchOperation> operations = List.of(
+                UserProfilePatchOperation.replace("city", "Omaha"),
+                UserProfilePatchOperation.replace("state", "NE")
+        );
+
+        when(userProfileService.updateUserProfile("alpha001", operations))
+                .thenAnswer(x -> ResponseEntity.ok("city, state updated for user: alpha001"));
+
+        mockMvc.perform(patch("/api/v1/demo/users/alpha001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  { "op": "replace", "path": "city", "value": "Omaha" },
+                                  { "op": "replace", "path": "state", "value": "NE" }
+                                ]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(content().string("city, state updated for user: alpha001"));
+    }
+
+    @Test
+    void testUpdateUserProfile_emptyOperationList_shouldReturn400() throws Exception {
+        mockMvc.perform(patch("/api/v1/demo/users/alpha001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Patch must contain at least one operation."));
+    }
+
     // DELETE tests
 
     @Test
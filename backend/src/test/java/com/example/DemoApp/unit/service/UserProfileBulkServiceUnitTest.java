@@ -0,0 +1,84 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.dto.BulkCreateResult;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.exception.InvalidUserInputException;
+import com.example.DemoApp.service.UserProfileBatchWriter;
+import com.example.DemoApp.service.UserProfileBulkProperties;
+import com.example.DemoApp.service.UserProfileBulkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileBulkServiceTest {
+
+    @Mock
+    private UserProfileBatchWriter batchWriter;
+
+    private UserProfileBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserProfileBulkService(batchWriter, new UserProfileBulkProperties(3));
+    }
+
+    private static UserProfileCreateRequest payload(String username, String email) {
+        return new UserProfileCreateRequest(username, email, "123 Main St", "Wonderland", "IL", "60601");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUserProfiles_mixedItems_reportsEachInRequestOrder() {
+        ArgumentCaptor<List<UserProfile>> captor = ArgumentCaptor.forClass(List.class);
+        when(batchWriter.insertAll(captor.capture())).thenReturn(Arrays.asList(11L, null));
+
+        ResponseEntity<?> resp = service.createUserProfiles(List.of(
+                payload("alice", "alice@example.com"),
+                payload("bob", "not-an-email"),
+                payload("carol", "carol@example.com")
+        ));
+
+        assertThat(captor.getValue()).extracting(UserProfile::getUsername).containsExactly("alice", "carol");
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((List<BulkCreateResult>) resp.getBody())
+                .extracting(BulkCreateResult::index, BulkCreateResult::status, BulkCreateResult::id)
+                .containsExactly(
+                        tuple(0, BulkCreateResult.Status.CREATED, 11L),
+                        tuple(1, BulkCreateResult.Status.INVALID, null),
+                        tuple(2, BulkCreateResult.Status.DUPLICATE, null)
+                );
+    }
+
+    @Test
+    void createUserProfiles_tooManyItems_throwsInvalidUserInput() {
+        List<UserProfileCreateRequest> payloads = Collections.nCopies(4, payload("alice", "alice@example.com"));
+
+        assertThatThrownBy(() -> service.createUserProfiles(payloads))
+                .isInstanceOf(InvalidUserInputException.class)
+                .hasMessage("A bulk request may contain at most 3 users.");
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void createUserProfiles_onWriterException_returns500() {
+        when(batchWriter.insertAll(anyList())).thenThrow(new RuntimeException("boom"));
+
+        ResponseEntity<?> resp = service.createUserProfiles(List.of(payload("alice", "alice@example.com")));
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(resp.getBody())
+                .isEqualTo("An error occurred while creating user profiles. Double-check your request.");
+    }
+}
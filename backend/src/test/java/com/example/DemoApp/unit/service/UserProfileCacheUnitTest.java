@@ -0,0 +1,165 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.dto.UserProfileView;
+import com.example.DemoApp.service.UserProfileCache;
+import com.example.DemoApp.service.UserProfileCacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserProfileCacheTest {
+
+    private static final int CALLERS = 32;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserProfileCache cache = new UserProfileCache(new ObjectMapper(), meterRegistry,
+            new UserProfileCacheProperties(true, 100, Duration.ofMinutes(10)));
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    private final UserProfileView alice =
+            new UserProfileView(1L, "alice", "alice@example.com", "123 Main St", "Chicago", "IL", "60601", 0L);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<UserProfileCache.CachedProfile>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> cache.get("alice", key -> {
+                loads.incrementAndGet();
+                await(release);
+                return alice;
+            })));
+        }
+        // Hold the load open until every other caller has joined it
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        UserProfileCache.CachedProfile first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<UserProfileCache.CachedProfile> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalesced()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void get_missingUser_isNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("ghost", key -> { loads.incrementAndGet(); return null; })).isNull();
+        assertThat(cache.get("ghost", key -> { loads.incrementAndGet(); return null; })).isNull();
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.getIfPresent("ghost")).isNull();
+    }
+
+    @Test
+    void get_failedLoad_isRethrownAndNotCached() {
+        assertThatThrownBy(() -> cache.get("alice", key -> { throw new IllegalStateException("db down"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("alice", key -> alice)).isNotNull();
+    }
+
+    @Test
+    void invalidate_duringLoad_keepsTheLoadedValueOutOfTheCache() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<UserProfileCache.CachedProfile> inFlight = executor.submit(() -> cache.get("alice", key -> {
+            loading.countDown();
+            await(release);
+            return alice;
+        }));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+
+        cache.invalidate("alice");
+        release.countDown();
+
+        assertThat(inFlight.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(cache.getIfPresent("alice")).isNull();
+    }
+
+    @Test
+    void getIfPresent_doesNotWaitOnAnInFlightLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<UserProfileCache.CachedProfile> inFlight = executor.submit(() -> cache.get("alice", key -> {
+            loading.countDown();
+            await(release);
+            return alice;
+        }));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cache.getIfPresent("alice")).isNull();
+
+        release.countDown();
+        assertThat(inFlight.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(cache.getIfPresent("alice")).isSameAs(inFlight.get());
+    }
+
+    @Test
+    void get_whenDisabled_loadsEveryTimeAndNeverCoalesces() throws Exception {
+        UserProfileCache disabled = new UserProfileCache(new ObjectMapper(), meterRegistry,
+                new UserProfileCacheProperties(false, 100, Duration.ofMinutes(10)));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch bothLoading = new CountDownLatch(2);
+
+        List<Future<UserProfileCache.CachedProfile>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> disabled.get("alice", key -> {
+                loads.incrementAndGet();
+                bothLoading.countDown();
+                await(bothLoading);
+                return alice;
+            })));
+        }
+
+        for (Future<UserProfileCache.CachedProfile> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(coalesced()).isZero();
+        assertThat(disabled.getIfPresent("alice")).isNull();
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(coalesced()).isEqualTo(expected);
+    }
+
+    private double coalesced() {
+        return meterRegistry.get(UserProfileCache.COALESCED_METRIC).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
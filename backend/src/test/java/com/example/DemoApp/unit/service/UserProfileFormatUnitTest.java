@@ -0,0 +1,42 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.service.UserProfileFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.InvalidMediaTypeException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserProfileFormatTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null                                                   | JSON",
+            "*/*                                                    | JSON",
+            "application/json                                       | JSON",
+            "application/cbor                                       | CBOR",
+            "application/x-jackson-smile                            | SMILE",
+            "application/*                                          | JSON",
+            "text/html, application/cbor                            | CBOR",
+            "application/json;q=0.5, application/x-jackson-smile    | SMILE",
+            "application/cbor;q=0, */*                              | JSON",
+            "text/csv                                               | JSON"
+    })
+    void negotiate_picksFormatForAcceptHeader(String accept, UserProfileFormat expected) {
+        assertThat(UserProfileFormat.negotiate(accept)).isEqualTo(expected);
+    }
+
+    @Test
+    void negotiate_malformedHeader_throwsIllegalArgument() {
+        assertThatThrownBy(() -> UserProfileFormat.negotiate("not a media type"))
+                .isInstanceOf(InvalidMediaTypeException.class);
+    }
+
+    @Test
+    void tag_onlyJsonKeepsTheBareTag() {
+        assertThat(UserProfileFormat.JSON.tag("1-0")).isEqualTo("1-0");
+        assertThat(UserProfileFormat.CBOR.tag("1-0")).isEqualTo("1-0-cbor");
+        assertThat(UserProfileFormat.SMILE.tag("1-0")).isEqualTo("1-0-smile");
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.exception.UserAlreadyExistsException;
+import com.example.DemoApp.service.UserProfileGroupCommitProperties;
+import com.example.DemoApp.service.UserProfileGroupCommitter;
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTimings.Operation;
+import com.example.DemoApp.service.UserProfileTimings.Phase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserProfileGroupCommitterTest {
+
+    private static final int WRITERS = 8;
+
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserProfileTimings timings = new UserProfileTimings(meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    private UserProfileGroupCommitter committer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        if (committer != null) {
+            committer.stop();
+        }
+    }
+
+    @Test
+    void execute_whenDisabled_commitsEachCallOnItsOwn() {
+        committer = committer(false, Duration.ofSeconds(1));
+        committer.start();
+
+        assertThat(committer.<String>execute(status -> "a")).isEqualTo("a");
+        assertThat(committer.<String>execute(status -> "b")).isEqualTo("b");
+
+        assertThat(transactionManager.commits.get()).isEqualTo(2);
+    }
+
+    @Test
+    void execute_concurrentWrites_shareOneCommit() throws Exception {
+        committer = committer(true, Duration.ofSeconds(5));
+        committer.start();
+
+        List<Future<Integer>> results = submitAll(i -> i * 10);
+
+        for (int i = 0; i < WRITERS; i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i * 10);
+        }
+        assertThat(transactionManager.commits.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(UserProfileGroupCommitter.BATCH_SIZE_METRIC).summary().max())
+                .isEqualTo(WRITERS);
+    }
+
+    @Test
+    void execute_oneRejectedWrite_failsAloneWithoutAReplay() throws Exception {
+        committer = committer(true, Duration.ofSeconds(5));
+        committer.start();
+
+        List<Future<Integer>> results = submitAll(i -> {
+            if (i == 3) {
+                throw new UserAlreadyExistsException();
+            }
+            return i;
+        });
+
+        for (int i = 0; i < WRITERS; i++) {
+            Future<Integer> result = results.get(i);
+            if (i == 3) {
+                assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(UserAlreadyExistsException.class);
+            } else {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(i);
+            }
+        }
+        assertThat(transactionManager.rollbacks.get()).isZero();
+        assertThat(transactionManager.commits.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(UserProfileGroupCommitter.REPLAYS_METRIC).counter().count()).isZero();
+    }
+
+    @Test
+    void execute_oneFailingWrite_replaysTheBatchOneWriteAtATime() throws Exception {
+        committer = committer(true, Duration.ofSeconds(5));
+        committer.start();
+
+        List<Future<Integer>> results = submitAll(i -> {
+            if (i == 3) {
+                throw new IllegalStateException("statement failed");
+            }
+            return i;
+        });
+
+        for (int i = 0; i < WRITERS; i++) {
+            Future<Integer> result = results.get(i);
+            if (i == 3) {
+                assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(IllegalStateException.class);
+            } else {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(i);
+            }
+        }
+        // The shared batch rolled back, then each write was replayed in its own transaction
+        assertThat(transactionManager.rollbacks.get()).isEqualTo(2);
+        assertThat(transactionManager.commits.get()).isEqualTo(WRITERS - 1);
+        assertThat(meterRegistry.get(UserProfileGroupCommitter.REPLAYS_METRIC).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_aloneCallbacks_neverJoinABatch() throws Exception {
+        committer = committer(true, Duration.ofSeconds(5));
+        committer.start();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int value = i;
+            results.add(executor.submit(() -> committer.execute(UserProfileGroupCommitter.alone(status -> value))));
+        }
+
+        for (int i = 0; i < WRITERS; i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        assertThat(transactionManager.commits.get()).isEqualTo(WRITERS);
+        assertThat(meterRegistry.get(UserProfileGroupCommitter.BATCH_SIZE_METRIC).summary().count()).isZero();
+    }
+
+    @Test
+    void execute_batchedWrite_timesIntoTheCallersBreakdown() throws Exception {
+        committer = committer(true, Duration.ZERO);
+        committer.start();
+
+        Future<Long> repositoryNanos = executor.submit(() -> {
+            UserProfileTimings.Breakdown breakdown = timings.openBreakdown();
+            try {
+                committer.execute(status -> timings.time(Operation.CREATE, Phase.REPOSITORY, () -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    return Thread.currentThread().getName();
+                }));
+                return breakdown.phaseNanos(Phase.REPOSITORY);
+            } finally {
+                timings.closeBreakdown();
+            }
+        });
+
+        assertThat(repositoryNanos.get(10, TimeUnit.SECONDS)).isPositive();
+        assertThat(meterRegistry.get(UserProfileGroupCommitter.BATCH_SIZE_METRIC).summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_replayedWrite_timesOnlyTheAttemptThatCommitted() throws Exception {
+        committer = committer(true, Duration.ofSeconds(5));
+        committer.start();
+
+        int failing = WRITERS - 1;
+        AtomicIntegerArray attempts = new AtomicIntegerArray(WRITERS);
+        List<Future<Long>> repositoryNanos = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int index = i;
+            if (index == failing) {
+                // Queued last, so every other write runs in the batch before it rolls back
+                Thread.sleep(50);
+            }
+            repositoryNanos.add(executor.submit(() -> {
+                UserProfileTimings.Breakdown breakdown = timings.openBreakdown();
+                try {
+                    committer.execute(status -> {
+                        if (index == failing) {
+                            throw new IllegalStateException("statement failed");
+                        }
+                        timings.recordSince(Operation.CREATE, Phase.REPOSITORY,
+                                System.nanoTime() - claimedNanos(attempts.incrementAndGet(index)));
+                        return index;
+                    });
+                    return breakdown.phaseNanos(Phase.REPOSITORY);
+                } finally {
+                    timings.closeBreakdown();
+                }
+            }));
+        }
+
+        for (int i = 0; i < failing; i++) {
+            assertThat(repositoryNanos.get(i).get(10, TimeUnit.SECONDS))
+                    .isBetween(claimedNanos(2), claimedNanos(2) + TimeUnit.MILLISECONDS.toNanos(500));
+            assertThat(attempts.get(i)).isEqualTo(2);
+        }
+        assertThatThrownBy(() -> repositoryNanos.get(failing).get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    // The batched run claims a whole second and the replay only a millisecond, so a double count shows
+    private static long claimedNanos(int attempt) {
+        return attempt == 1 ? TimeUnit.SECONDS.toNanos(1) : TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Test
+    void stop_commitsWritesStillQueued() throws Exception {
+        committer = committer(true, Duration.ofSeconds(30));
+        committer.start();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int value = i;
+            results.add(executor.submit(() -> committer.execute(status -> value)));
+        }
+        // Whether a write is still queued, in the open batch, or not queued yet, it must not be lost
+        Thread.sleep(50);
+        committer.stop();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+    }
+
+    private interface Write {
+        int apply(int index);
+    }
+
+    private List<Future<Integer>> submitAll(Write write) {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int index = i;
+            results.add(executor.submit(() -> committer.execute(status -> write.apply(index))));
+        }
+        return results;
+    }
+
+    private UserProfileGroupCommitter committer(boolean enabled, Duration maxWait) {
+        return new UserProfileGroupCommitter(transactionManager, timings,
+                new UserProfileGroupCommitProperties(enabled, WRITERS, maxWait, 64), meterRegistry);
+    }
+
+    private static final class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final AtomicInteger commits = new AtomicInteger();
+        private final AtomicInteger rollbacks = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileAggregates;
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileLocationCounts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileLocationCountsTest {
+
+    @Mock
+    private UserProfileRepository repo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserProfileLocationCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        counts = new UserProfileLocationCounts(repo, meterRegistry);
+    }
+
+    @Test
+    void loadCounts_seedsFromRepository_withoutCountingAsDrift() {
+        when(repo.countByState()).thenReturn(rows(new Object[]{"IL", 3L}, new Object[]{"NE", 1L}));
+        when(repo.countByZip3()).thenReturn(rows(new Object[]{"606", 2L}, new Object[]{"627", 1L}, new Object[]{"681", 1L}));
+
+        counts.loadCounts();
+
+        UserProfileAggregates aggregates = counts.snapshot();
+        assertThat(aggregates.total()).isEqualTo(4);
+        assertThat(aggregates.byState()).containsExactly(entry("IL", 3L), entry("NE", 1L));
+        assertThat(aggregates.byZip3()).containsExactly(entry("606", 2L), entry("627", 1L), entry("681", 1L));
+        assertThat(meterRegistry.get("user.profiles.aggregates.corrections").counter().count()).isZero();
+    }
+
+    @Test
+    void addRemoveAndMove_adjustStateAndZip3Buckets() {
+        UserProfileLocation chicago = new UserProfileLocation("IL", "60601");
+        UserProfileLocation omaha = new UserProfileLocation("NE", "68102");
+
+        counts.add(chicago);
+        counts.add(chicago);
+        counts.add(omaha);
+        counts.move(chicago, omaha);
+        counts.remove(omaha);
+
+        UserProfileAggregates aggregates = counts.snapshot();
+        assertThat(aggregates.total()).isEqualTo(2);
+        assertThat(aggregates.byState()).containsExactly(entry("IL", 1L), entry("NE", 1L));
+        assertThat(aggregates.byZip3()).containsExactly(entry("606", 1L), entry("681", 1L));
+    }
+
+    @Test
+    void move_withinSameBuckets_changesNothing() {
+        counts.add(new UserProfileLocation("IL", "60601"));
+
+        counts.move(new UserProfileLocation("IL", "60601"), new UserProfileLocation("IL", "60699"));
+
+        assertThat(counts.snapshot().byZip3()).containsExactly(entry("606", 1L));
+    }
+
+    @Test
+    void reconcile_correctsDrift_andDropsEmptiedBuckets() {
+        counts.add(new UserProfileLocation("IL", "60601"));
+        counts.add(new UserProfileLocation("IL", "60601"));
+        counts.add(new UserProfileLocation("WI", "53703"));
+        when(repo.countByState()).thenReturn(rows(new Object[]{"IL", 3L}));
+        when(repo.countByZip3()).thenReturn(rows(new Object[]{"606", 3L}));
+
+        counts.reconcile();
+
+        UserProfileAggregates aggregates = counts.snapshot();
+        assertThat(aggregates.total()).isEqualTo(3);
+        assertThat(aggregates.byState()).containsExactly(entry("IL", 3L));
+        assertThat(aggregates.byZip3()).containsExactly(entry("606", 3L));
+        // IL and 606 were one short, WI and 537 one too many
+        assertThat(meterRegistry.get("user.profiles.aggregates.corrections").counter().count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void concurrentAdds_areAllCounted() throws Exception {
+        UserProfileLocation chicago = new UserProfileLocation("IL", "60601");
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 10_000).forEach(i -> executor.execute(() -> counts.add(chicago)));
+        }
+
+        assertThat(counts.snapshot().byState()).containsExactly(entry("IL", 10_000L));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
@@ -1,23 +1,52 @@
 package com.example.DemoApp.unit.service;
 
+import com.example.DemoApp.service.UserProfileCache;
+import com.example.DemoApp.service.UserProfileCacheProperties;
+import com.example.DemoApp.service.UserProfileChangeCounter;
+import com.example.DemoApp.service.UserProfileCursor;
+import com.example.DemoApp.service.UserProfileFormat;
+import com.example.DemoApp.service.UserProfileLocationCounts;
+import com.example.DemoApp.service.UserProfilePageProperties;
 import com.example.DemoApp.service.UserProfileService;
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTypeaheadProperties;
+import com.example.DemoApp.service.UserProfileUsernameIndex;
+import com.example.DemoApp.service.UserProfileUsernameFilter;
+import com.example.DemoApp.service.UserProfileUsernameFilterProperties;
 import com.example.DemoApp.domain.UserProfile;
+import com.example.DemoApp.domain.UserProfileLocation;
+import com.example.DemoApp.dto.UserProfileAggregates;
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
+import com.example.DemoApp.dto.UserProfileView;
 import com.example.DemoApp.exception.InvalidUpdateException;
+import com.example.DemoApp.exception.InvalidUserInputException;
 import com.example.DemoApp.exception.UserAlreadyExistsException;
 import com.example.DemoApp.exception.UserNotFoundException;
+import com.example.DemoApp.exception.UserUpdateConflictException;
 import com.example.DemoApp.repository.UserProfileRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,16 +54,42 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UserProfileServiceTest {
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Mock
     private UserProfileRepository repo;
 
-    @InjectMocks
     private UserProfileService service;
 
+    private UserProfileUsernameFilter usernameFilter;
+
+    private UserProfileUsernameIndex usernameIndex;
+
+    private UserProfileLocationCounts locationCounts;
+
     private UserProfile sampleUser;
 
+    private UserProfileView sampleView;
+
+    private final UserProfileLocation aliceLocation = new UserProfileLocation("IL", "60601");
+
     @BeforeEach
     void setUp() {
+        UserProfileCache cache = new UserProfileCache(objectMapper, new SimpleMeterRegistry(),
+                new UserProfileCacheProperties(true, 100, Duration.ofMinutes(10)));
+        // Not loaded, so it answers "maybe" and every lookup reaches the repository unless a test loads it
+        usernameFilter = new UserProfileUsernameFilter(repo,
+                new UserProfileUsernameFilterProperties(true, 1000, 0.01, DataSize.ofKilobytes(64)),
+                new SimpleMeterRegistry());
+        usernameIndex = new UserProfileUsernameIndex(repo, new UserProfileTypeaheadProperties(10, 50),
+                new SimpleMeterRegistry());
+        locationCounts = new UserProfileLocationCounts(repo, new SimpleMeterRegistry());
+        service = new UserProfileService(repo, cache, new UserProfilePageProperties(2, 3), usernameFilter, usernameIndex,
+                locationCounts, new UserProfileChangeCounter(), new UserProfileTimings(meterRegistry),
+                TransactionOperations.withoutTransaction());
+
         sampleUser = UserProfile.builder()
                 .id(123L)
                 .username("alice")
@@ -43,7 +98,9 @@ class UserProfileServiceTest {
                 .city("Wonderland")
                 .state("IL")
                 .zipCode("60601")
+                .version(4L)
                 .build();
+        sampleView = UserProfileView.of(sampleUser);
     }
 
     //
@@ -51,18 +108,121 @@ class UserProfileServiceTest {
     //
 
     @Test
-    void getUserProfile_whenFound_returns200AndBody() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
+    void getUserProfile_whenFound_returns200AndBody() throws Exception {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        ResponseEntity<?> resp = service.getUserProfile("alice");
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(resp.getBody()).isEqualTo(objectMapper.writeValueAsBytes(sampleUser));
+    }
+
+    @Test
+    void getUserProfile_whenFound_returnsStrongETagFromIdAndVersion() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
 
         ResponseEntity<?> resp = service.getUserProfile("alice");
 
+        assertThat(resp.getHeaders().getETag()).isEqualTo("\"123-4\"");
+    }
+
+    @Test
+    void getUserProfile_ifNoneMatchesCachedTag_returns304WithoutQuery() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+        service.getUserProfile("alice");
+
+        ResponseEntity<?> resp = service.getUserProfile("alice", "\"999-1\", \"123-4\"", UserProfileFormat.JSON);
+
+        verify(repo, times(1)).findViewByUsername("alice");
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(resp.getHeaders().getETag()).isEqualTo("\"123-4\"");
+        assertThat(resp.getBody()).isNull();
+    }
+
+    @Test
+    void getUserProfile_ifNoneMatchesLoadedTag_returns304() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        ResponseEntity<?> resp = service.getUserProfile("alice", "\"123-4\"", UserProfileFormat.JSON);
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(resp.getBody()).isNull();
+    }
+
+    @Test
+    void getUserProfile_staleIfNoneMatch_returns200WithBody() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        ResponseEntity<?> resp = service.getUserProfile("alice", "\"123-3\"", UserProfileFormat.JSON);
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getHeaders().getETag()).isEqualTo("\"123-4\"");
+        assertThat(resp.getBody()).isNotNull();
+    }
+
+    @Test
+    void getUserProfile_asCbor_returnsBinaryEncodingWithItsOwnETag() throws Exception {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        ResponseEntity<?> json = service.getUserProfile("alice");
+        ResponseEntity<?> cbor = service.getUserProfile("alice", null, UserProfileFormat.CBOR);
+
+        verify(repo, times(1)).findViewByUsername("alice");
+        assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(cbor.getHeaders().getETag()).isEqualTo("\"123-4-cbor\"").isNotEqualTo(json.getHeaders().getETag());
+        assertThat(cbor.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        assertThat(new CBORMapper().readValue((byte[]) cbor.getBody(), UserProfile.class)).isEqualTo(sampleUser);
+        assertThat(((byte[]) cbor.getBody()).length).isLessThan(((byte[]) json.getBody()).length);
+    }
+
+    @Test
+    void getUserProfile_ifNoneMatchesOtherFormatsTag_returns200() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        ResponseEntity<?> resp = service.getUserProfile("alice", "\"123-4\"", UserProfileFormat.SMILE);
+
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(resp.getBody()).isSameAs(sampleUser);
+        assertThat(resp.getHeaders().getETag()).isEqualTo("\"123-4-smile\"");
+    }
+
+    @Test
+    void getUserProfile_recordsRepositoryAndSerializationPhases() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        service.getUserProfile("alice");
+        service.getUserProfile("alice");
+
+        assertThat(meterRegistry.get(UserProfileTimings.METRIC_NAME).tag("operation", "get").tag("phase", "db")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(UserProfileTimings.METRIC_NAME).tag("operation", "get").tag("phase", "serialize")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void getUserProfile_repeatedLookup_servedFromCache() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        service.getUserProfile("alice");
+        ResponseEntity<?> resp = service.getUserProfile("alice");
+
+        verify(repo, times(1)).findViewByUsername("alice");
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getUserProfile_whenNotFound_isNotCached() {
+        when(repo.findViewByUsername("bob")).thenReturn(Optional.empty());
+
+        service.getUserProfile("bob");
+        service.getUserProfile("bob");
+
+        verify(repo, times(2)).findViewByUsername("bob");
     }
 
     @Test
     void getUserProfile_whenNotFound_returns404AndMessage() {
-        when(repo.findByUsername("bob")).thenReturn(Optional.empty());
+        when(repo.findViewByUsername("bob")).thenReturn(Optional.empty());
 
         ResponseEntity<?> resp = service.getUserProfile("bob");
 
@@ -72,7 +232,7 @@ class UserProfileServiceTest {
 
     @Test
     void getUserProfile_onGenericException_returns500() {
-        when(repo.findByUsername(anyString()))
+        when(repo.findViewByUsername(anyString()))
                 .thenThrow(new RuntimeException("oops"));
 
         ResponseEntity<?> resp = service.getUserProfile("anything");
@@ -88,9 +248,9 @@ class UserProfileServiceTest {
 
     @Test
     void getAllUsers_whenEmpty_returns200AndMsg() {
-        when(repo.findAll()).thenReturn(Collections.emptyList());
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(3))).thenReturn(Collections.emptyList());
 
-        ResponseEntity<?> resp = service.getAllUsers();
+        ResponseEntity<?> resp = service.getAllUsers(null, null);
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getBody()).isEqualTo("No user profiles found in the database.");
@@ -98,44 +258,142 @@ class UserProfileServiceTest {
 
     @Test
     void getAllUsers_whenNonEmpty_returns200AndList() {
-        List<UserProfile> list = List.of(sampleUser);
-        when(repo.findAll()).thenReturn(list);
+        List<UserProfileView> list = List.of(sampleView);
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(3))).thenReturn(list);
 
-        ResponseEntity<?> resp = service.getAllUsers();
+        ResponseEntity<?> resp = service.getAllUsers(null, null);
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getBody()).isSameAs(list);
+        assertThat(resp.getHeaders().containsKey(UserProfileService.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    @Test
+    void getAllUsers_whenMoreRowsThanPage_returnsNextCursor() {
+        UserProfileView second = new UserProfileView(124L, "bob", null, null, null, null, null, 0L);
+        UserProfileView third = new UserProfileView(125L, "carol", null, null, null, null, null, 0L);
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(3))).thenReturn(List.of(sampleView, second, third));
+
+        ResponseEntity<?> resp = service.getAllUsers(null, null);
+
+        assertThat(resp.getBody()).asInstanceOf(InstanceOfAssertFactories.LIST).containsExactly(sampleView, second);
+        assertThat(resp.getHeaders().getFirst(UserProfileService.NEXT_CURSOR_HEADER))
+                .isEqualTo(UserProfileCursor.encode(124L));
+    }
+
+    @Test
+    void getAllUsers_withCursor_seeksPastLastId() {
+        when(repo.findViewsByIdGreaterThan(124L, Limit.of(3))).thenReturn(Collections.emptyList());
+
+        ResponseEntity<?> resp = service.getAllUsers(UserProfileCursor.encode(124L), null);
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((List<?>) resp.getBody()).isEmpty();
+    }
+
+    @Test
+    void getAllUsers_pageSizeAboveMax_isCapped() {
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(4))).thenReturn(List.of(sampleView));
+
+        service.getAllUsers(null, 1000);
+
+        verify(repo).findViewsByIdGreaterThan(0L, Limit.of(4));
+    }
+
+    @Test
+    void getAllUsers_ifNoneMatchesCurrentTag_returns304WithoutQuery() {
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(3))).thenReturn(List.of(sampleView));
+        String eTag = service.getAllUsers(null, null).getHeaders().getETag();
+
+        ResponseEntity<?> resp = service.getAllUsers(null, null, eTag, UserProfileFormat.JSON);
+
+        verify(repo, times(1)).findViewsByIdGreaterThan(anyLong(), any(Limit.class));
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(resp.getHeaders().getETag()).isEqualTo(eTag);
+    }
+
+    @Test
+    void getAllUsers_afterAWrite_tagChanges() {
+        when(repo.findViewsByIdGreaterThan(0L, Limit.of(3))).thenReturn(List.of(sampleView));
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.of(aliceLocation));
+        String before = service.getAllUsers(null, null).getHeaders().getETag();
+
+        service.deleteUserProfile("alice");
+        ResponseEntity<?> resp = service.getAllUsers(null, null, before, UserProfileFormat.JSON);
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getHeaders().getETag()).isNotEqualTo(before);
+    }
+
+    @Test
+    void getAllUsers_invalidCursor_throwsInvalidUserInput() {
+        assertThatThrownBy(() -> service.getAllUsers("not-a-cursor", null))
+                .isInstanceOf(InvalidUserInputException.class);
     }
 
     @Test
     void getAllUsers_onException_returns500() {
-        when(repo.findAll()).thenThrow(new RuntimeException("fail"));
+        when(repo.findViewsByIdGreaterThan(anyLong(), any(Limit.class))).thenThrow(new RuntimeException("fail"));
 
-        ResponseEntity<?> resp = service.getAllUsers();
+        ResponseEntity<?> resp = service.getAllUsers(null, null);
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         assertThat(resp.getBody())
                 .isEqualTo("A server error occurred while retrieving user profiles.");
     }
 
+    @Test
+    void getUserProfile_definiteMissFromFilter_skipsRepository() {
+        when(repo.streamAllUsernames()).thenReturn(Stream.of("alice"));
+        usernameFilter.loadExistingUsernames();
+
+        ResponseEntity<?> resp = service.getUserProfile("nobody");
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(resp.getBody()).isEqualTo("That user does not exist. Please try again.");
+        verify(repo, never()).findViewByUsername(any());
+    }
+
+    //
+    // findUsernamesByPrefix(...)
+    //
+
+    @Test
+    void findUsernamesByPrefix_returnsIndexMatches() {
+        usernameIndex.add("alice");
+        usernameIndex.add("alistair");
+        usernameIndex.add("bob");
+
+        ResponseEntity<List<String>> resp = service.findUsernamesByPrefix("Ali", null);
+
+        assertThat(resp.getBody()).containsExactly("alice", "alistair");
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void findUsernamesByPrefix_blankPrefix_throwsInvalidInput() {
+        assertThatThrownBy(() -> service.findUsernamesByPrefix(" ", null))
+                .isInstanceOf(InvalidUserInputException.class)
+                .hasMessage("Prefix must not be blank.");
+    }
+
     //
     // createUserProfile(...)
     //
 
     @Test
     void createUserProfile_success_returns200WithIdMsg() {
-        Map<String,String> payload = Map.of(
-                "username",      sampleUser.getUsername(),
-                "emailAddress",  sampleUser.getEmailAddress(),
-                "streetAddress", sampleUser.getStreetAddress(),
-                "city",          sampleUser.getCity(),
-                "state",         sampleUser.getState(),
-                "zipCode",       sampleUser.getZipCode()
-        );
+        UserProfileCreateRequest request = new UserProfileCreateRequest(
+                sampleUser.getUsername(),
+                sampleUser.getEmailAddress(),
+                sampleUser.getStreetAddress(),
+                sampleUser.getCity(),
+                sampleUser.getState(),
+                sampleUser.getZipCode());
 
         when(repo.save(any())).thenReturn(sampleUser);
 
-        ResponseEntity<String> resp = service.createUserProfile(payload);
+        ResponseEntity<String> resp = service.createUserProfile(request);
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getBody())
@@ -147,16 +405,39 @@ class UserProfileServiceTest {
         when(repo.save(any()))
                 .thenThrow(new DataIntegrityViolationException("dup"));
 
-        assertThatThrownBy(() -> service.createUserProfile(Map.of()))
+        assertThatThrownBy(() -> service.createUserProfile(createRequest(null)))
                 .isInstanceOf(UserAlreadyExistsException.class);
     }
 
+    @Test
+    void createUserProfile_likelyDuplicate_checkedBeforeInsert() {
+        when(repo.streamAllUsernames()).thenReturn(Stream.of("alice"));
+        usernameFilter.loadExistingUsernames();
+        when(repo.existsByUsername("alice")).thenReturn(true);
+
+        assertThatThrownBy(() -> service.createUserProfile(createRequest("alice")))
+                .isInstanceOf(UserAlreadyExistsException.class);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void createUserProfile_definiteMiss_skipsExistenceCheck() {
+        when(repo.streamAllUsernames()).thenReturn(Stream.of("alice"));
+        usernameFilter.loadExistingUsernames();
+        when(repo.save(any())).thenReturn(sampleUser);
+
+        service.createUserProfile(createRequest("brandNewUser"));
+
+        verify(repo, never()).existsByUsername(any());
+        verify(repo).save(any());
+    }
+
     @Test
     void createUserProfile_onGenericException_returns500() {
         when(repo.save(any()))
                 .thenThrow(new RuntimeException("oops"));
 
-        ResponseEntity<String> resp = service.createUserProfile(Map.of());
+        ResponseEntity<String> resp = service.createUserProfile(createRequest(null));
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         assertThat(resp.getBody())
@@ -169,81 +450,284 @@ class UserProfileServiceTest {
 
     @Test
     void updateUserProfile_usernameChange_succeeds() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
-        ArgumentCaptor<UserProfile> captor = ArgumentCaptor.forClass(UserProfile.class);
-
-        Map<String,String> payload = Map.of("path","username", "value","bob");
-        ResponseEntity<?> resp = service.updateUserProfile("alice", payload);
+        when(repo.updateByUsername("alice", "bob", null, null, null, null, null)).thenReturn(Optional.of(aliceLocation));
 
-        verify(repo).saveAndFlush(captor.capture());
-        UserProfile saved = captor.getValue();
-        assertThat(saved.getUsername()).isEqualTo("bob");
+        ResponseEntity<?> resp = service.updateUserProfile("alice", UserProfilePatchOperation.replace("username", "bob"));
 
+        verify(repo, never()).findViewByUsername(any());
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getBody()).isEqualTo("username updated for user: bob");
     }
 
+    @Test
+    void updateUserProfile_usernameChange_renamesInTypeaheadIndex() {
+        usernameIndex.add("alice");
+        when(repo.updateByUsername("alice", "bob", null, null, null, null, null)).thenReturn(Optional.of(aliceLocation));
+
+        service.updateUserProfile("alice", UserProfilePatchOperation.replace("username", "bob"));
+
+        assertThat(usernameIndex.findByPrefix("a", null)).isEmpty();
+        assertThat(usernameIndex.findByPrefix("b", null)).containsExactly("bob");
+    }
+
+    @Test
+    void updateUserProfile_usernameChange_evictsOldCacheEntry() {
+        when(repo.findViewByUsername("alice"))
+                .thenReturn(Optional.of(sampleView))
+                .thenReturn(Optional.empty());
+        when(repo.updateByUsername("alice", "bob", null, null, null, null, null)).thenReturn(Optional.of(aliceLocation));
+
+        service.getUserProfile("alice");
+        service.updateUserProfile("alice", UserProfilePatchOperation.replace("username", "bob"));
+        ResponseEntity<?> resp = service.getUserProfile("alice");
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void updateUserProfile_multipleOperations_issuesOneUpdate() {
+        when(repo.updateByUsername("alice", null, null, null, "Omaha", "NE", "68102")).thenReturn(Optional.of(aliceLocation));
+
+        ResponseEntity<?> resp = service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.replace("city", "Omaha"),
+                UserProfilePatchOperation.replace("state", "NE"),
+                UserProfilePatchOperation.replace("zipCode", "68102")));
+
+        verify(repo, times(1)).updateByUsername(any(), any(), any(), any(), any(), any(), any());
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getBody()).isEqualTo("city, state, zipCode updated for user: alice");
+    }
+
+    @Test
+    void updateUserProfile_locationChange_movesLocationCounts() {
+        locationCounts.add(aliceLocation);
+        when(repo.updateByUsername("alice", null, null, null, null, "NE", "68102"))
+                .thenReturn(Optional.of(aliceLocation));
+
+        service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.replace("state", "NE"),
+                UserProfilePatchOperation.replace("zipCode", "68102")));
+
+        UserProfileAggregates aggregates = service.getAggregates().getBody();
+        assertThat(aggregates.total()).isEqualTo(1);
+        assertThat(aggregates.byState()).containsExactly(entry("NE", 1L));
+        assertThat(aggregates.byZip3()).containsExactly(entry("681", 1L));
+    }
+
+    @Test
+    void updateUserProfile_multipleOperations_invalidField_savesNothing() {
+        assertThatThrownBy(() ->
+                service.updateUserProfile("alice", List.of(
+                        UserProfilePatchOperation.replace("city", "Omaha"),
+                        UserProfilePatchOperation.replace("nope", "X")))
+        ).isInstanceOf(InvalidUpdateException.class);
+
+        verify(repo, never()).updateByUsername(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateUserProfile_nullValue_throwsInvalidUpdate() {
+        assertThatThrownBy(() -> service.updateUserProfile("alice", UserProfilePatchOperation.replace("city", null)))
+                .isInstanceOf(InvalidUpdateException.class)
+                .hasMessage("Field 'city' cannot be blank.");
+    }
+
     @Test
     void updateUserProfile_nonexistent_throwsUserNotFound() {
-        when(repo.findByUsername("missing")).thenReturn(Optional.empty());
+        when(repo.updateByUsername("missing", null, null, null, "X", null, null)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() ->
-                service.updateUserProfile("missing", Map.of("path","city","value","X"))
-        ).isInstanceOf(UserNotFoundException.class);
+                service.updateUserProfile("missing", UserProfilePatchOperation.replace("city", "X"))
+        ).isInstanceOf(UserNotFoundException.class)
+                .hasMessage("No user found with username: missing");
     }
 
     @Test
     void updateUserProfile_invalidField_throwsInvalidUpdate() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
-
         assertThatThrownBy(() ->
-                service.updateUserProfile("alice", Map.of("path","nope","value","X"))
+                service.updateUserProfile("alice", UserProfilePatchOperation.replace("nope", "X"))
         ).isInstanceOf(InvalidUpdateException.class);
     }
 
     @Test
     void updateUserProfile_duplicateUsername_throwsUserAlreadyExists() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
-        doThrow(new DataIntegrityViolationException("dup"))
-                .when(repo).saveAndFlush(any());
+        when(repo.updateByUsername("alice", "carol", null, null, null, null, null))
+                .thenThrow(new DataIntegrityViolationException("dup"));
 
         assertThatThrownBy(() ->
-                service.updateUserProfile("alice", Map.of("path","username","value","carol"))
+                service.updateUserProfile("alice", UserProfilePatchOperation.replace("username", "carol"))
         ).isInstanceOf(UserAlreadyExistsException.class);
     }
 
+    @Test
+    void updateUserProfile_blindPatchHitsLockFailure_retries() {
+        when(repo.updateByUsername("alice", null, null, null, "Omaha", null, null))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(Optional.of(aliceLocation));
+
+        ResponseEntity<?> resp = service.updateUserProfile("alice", UserProfilePatchOperation.replace("city", "Omaha"));
+
+        verify(repo, times(2)).updateByUsername("alice", null, null, null, "Omaha", null, null);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void updateUserProfile_blindPatchKeepsHittingLockFailures_givesUpWithConflict() {
+        when(repo.updateByUsername("alice", null, null, null, "Omaha", null, null))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        assertThatThrownBy(() -> service.updateUserProfile("alice", UserProfilePatchOperation.replace("city", "Omaha")))
+                .isInstanceOf(UserUpdateConflictException.class);
+
+        verify(repo, times(8)).updateByUsername(any(), any(), any(), any(), any(), any(), any());
+    }
+
     @Test
     void updateUserProfile_onGenericException_returns500() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
-        doThrow(new RuntimeException("fail"))
-                .when(repo).saveAndFlush(any());
+        when(repo.updateByUsername("alice", null, null, null, "X", null, null))
+                .thenThrow(new RuntimeException("fail"));
 
         ResponseEntity<?> resp = service.updateUserProfile("alice",
-                Map.of("path","city","value","X"));
+                UserProfilePatchOperation.replace("city", "X"));
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         assertThat(resp.getBody())
                 .isEqualTo("Server error occurred while updating user profile.");
     }
 
+    @Test
+    void updateUserProfile_withPassingTest_updatesAtTheVersionRead() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+        when(repo.updateByUsernameAndVersion("alice", 4L, null, null, null, "Omaha", null, null))
+                .thenReturn(Optional.of(aliceLocation));
+
+        ResponseEntity<?> resp = service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.test("city", "Wonderland"),
+                UserProfilePatchOperation.replace("city", "Omaha")));
+
+        verify(repo, never()).updateByUsername(any(), any(), any(), any(), any(), any(), any());
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getBody()).isEqualTo("city updated for user: alice");
+    }
+
+    @Test
+    void updateUserProfile_withFailingTest_throwsConflictAndWritesNothing() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+
+        assertThatThrownBy(() -> service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.test("city", "Springfield"),
+                UserProfilePatchOperation.replace("city", "Omaha"))))
+                .isInstanceOf(UserUpdateConflictException.class)
+                .hasMessage("Field 'city' no longer has the value 'Springfield'. Reload and try again.");
+
+        verify(repo, never()).updateByUsernameAndVersion(any(), anyLong(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateUserProfile_versionMovedOn_rereadsAndRetries() {
+        UserProfileView newer = new UserProfileView(123L, "alice", "alice@new.example.com", "123 Main St",
+                "Wonderland", "IL", "60601", 5L);
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView)).thenReturn(Optional.of(newer));
+        when(repo.updateByUsernameAndVersion("alice", 4L, null, null, null, "Omaha", null, null))
+                .thenReturn(Optional.empty());
+        when(repo.updateByUsernameAndVersion("alice", 5L, null, null, null, "Omaha", null, null))
+                .thenReturn(Optional.of(aliceLocation));
+
+        ResponseEntity<?> resp = service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.test("city", "Wonderland"),
+                UserProfilePatchOperation.replace("city", "Omaha")));
+
+        verify(repo, times(2)).findViewByUsername("alice");
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void updateUserProfile_versionKeepsMoving_givesUpWithConflict() {
+        when(repo.findViewByUsername("alice")).thenReturn(Optional.of(sampleView));
+        when(repo.updateByUsernameAndVersion("alice", 4L, null, null, null, "Omaha", null, null))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.updateUserProfile("alice", List.of(
+                UserProfilePatchOperation.test("state", "IL"),
+                UserProfilePatchOperation.replace("city", "Omaha"))))
+                .isInstanceOf(UserUpdateConflictException.class);
+
+        verify(repo, times(8)).updateByUsernameAndVersion(any(), anyLong(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateUserProfile_withTestOnMissingUser_throwsUserNotFound() {
+        when(repo.findViewByUsername("missing")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.updateUserProfile("missing", List.of(
+                UserProfilePatchOperation.test("city", "X"),
+                UserProfilePatchOperation.replace("city", "Y"))))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    void updateUserProfile_onlyTests_throwsInvalidUpdate() {
+        assertThatThrownBy(() -> service.updateUserProfile("alice", UserProfilePatchOperation.test("city", "X")))
+                .isInstanceOf(InvalidUpdateException.class)
+                .hasMessage("At least one replace operation is required.");
+    }
+
     //
     // deleteUserProfile(...)
     //
 
     @Test
     void deleteUserProfile_exists_returns204() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.of(aliceLocation));
 
         ResponseEntity<?> resp = service.deleteUserProfile("alice");
 
-        verify(repo).delete(sampleUser);
+        verify(repo, never()).findViewByUsername(any());
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         assertThat(resp.getBody()).isNull();
     }
 
+    @Test
+    void deleteUserProfile_exists_removesFromTypeaheadIndex() {
+        usernameIndex.add("alice");
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.of(aliceLocation));
+
+        service.deleteUserProfile("alice");
+
+        assertThat(usernameIndex.findByPrefix("alice", null)).isEmpty();
+    }
+
+    @Test
+    void deleteUserProfile_exists_decrementsLocationCounts() {
+        locationCounts.add(aliceLocation);
+        locationCounts.add(new UserProfileLocation("IL", "62701"));
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.of(aliceLocation));
+
+        service.deleteUserProfile("alice");
+
+        UserProfileAggregates aggregates = service.getAggregates().getBody();
+        assertThat(aggregates.total()).isEqualTo(1);
+        assertThat(aggregates.byState()).containsExactly(entry("IL", 1L));
+        assertThat(aggregates.byZip3()).containsExactly(entry("627", 1L));
+    }
+
+    @Test
+    void deleteUserProfile_exists_evictsCacheEntry() {
+        when(repo.findViewByUsername("alice"))
+                .thenReturn(Optional.of(sampleView))
+                .thenReturn(Optional.empty());
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.of(aliceLocation));
+
+        service.getUserProfile("alice");
+        service.deleteUserProfile("alice");
+        ResponseEntity<?> resp = service.getUserProfile("alice");
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void deleteUserProfile_missing_throwsUserNotFound() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.empty());
+        when(repo.deleteByUsername("alice")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> service.deleteUserProfile("alice"))
                 .isInstanceOf(UserNotFoundException.class);
@@ -251,13 +735,15 @@ class UserProfileServiceTest {
 
     @Test
     void deleteUserProfile_onGenericException_returns500() {
-        when(repo.findByUsername("alice")).thenReturn(Optional.of(sampleUser));
-        doThrow(new RuntimeException("boom"))
-                .when(repo).delete(sampleUser);
+        when(repo.deleteByUsername("alice")).thenThrow(new RuntimeException("boom"));
 
         ResponseEntity<?> resp = service.deleteUserProfile("alice");
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         assertThat(resp.getBody())
                 .isEqualTo("Server error occurred while deleting user profile.");
     }
+
+    private static UserProfileCreateRequest createRequest(String username) {
+        return new UserProfileCreateRequest(username, null, null, null, null, null);
+    }
 }
@@ -0,0 +1,72 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.service.UserProfileTimings;
+import com.example.DemoApp.service.UserProfileTimings.Operation;
+import com.example.DemoApp.service.UserProfileTimings.Phase;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserProfileTimingsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserProfileTimings timings = new UserProfileTimings(meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        timings.closeBreakdown();
+    }
+
+    @Test
+    void time_recordsIntoTheOperationAndPhaseTimer() {
+        String result = timings.time(Operation.CREATE, Phase.REPOSITORY, () -> "saved");
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(timer("create", "db").count()).isEqualTo(1);
+        assertThat(timer("create", "validation").count()).isZero();
+        assertThat(timer("get", "db").count()).isZero();
+    }
+
+    @Test
+    void run_recordsEvenWhenTheWorkThrows() {
+        assertThatThrownBy(() -> timings.run(Operation.UPDATE, Phase.VALIDATION, () -> {
+            throw new IllegalArgumentException("bad");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(timer("update", "validation").count()).isEqualTo(1);
+    }
+
+    @Test
+    void breakdown_sumsPhasesOnlyWhileOpen() {
+        timings.run(Operation.GET, Phase.REPOSITORY, () -> { });
+        assertThat(timings.currentBreakdown()).isNull();
+
+        UserProfileTimings.Breakdown breakdown = timings.openBreakdown();
+        timings.recordSince(Operation.GET, Phase.REPOSITORY, System.nanoTime() - 2_000_000);
+        timings.recordSince(Operation.GET, Phase.REPOSITORY, System.nanoTime() - 1_000_000);
+
+        assertThat(timings.currentBreakdown()).isSameAs(breakdown);
+        assertThat(breakdown.phaseNanos(Phase.REPOSITORY)).isGreaterThanOrEqualTo(3_000_000);
+        assertThat(breakdown.phaseNanos(Phase.VALIDATION)).isZero();
+
+        timings.closeBreakdown();
+        assertThat(timings.currentBreakdown()).isNull();
+    }
+
+    @Test
+    void toHeaderValue_listsPhasesThatRanThenTotal() {
+        UserProfileTimings.Breakdown breakdown = timings.openBreakdown();
+        timings.recordSince(Operation.GET, Phase.VALIDATION, System.nanoTime() - 12_000);
+        timings.recordSince(Operation.GET, Phase.SERIALIZATION, System.nanoTime() - 1_500_000);
+
+        assertThat(breakdown.toHeaderValue())
+                .matches("validation;dur=\\d+\\.\\d{3}, serialize;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}");
+    }
+
+    private Timer timer(String operation, String phase) {
+        return meterRegistry.get(UserProfileTimings.METRIC_NAME).tag("operation", operation).tag("phase", phase).timer();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileUsernameFilter;
+import com.example.DemoApp.service.UserProfileUsernameFilterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileUsernameFilterTest {
+
+    @Mock
+    private UserProfileRepository repo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserProfileUsernameFilter filter(long expectedInsertions, double falsePositiveRate, DataSize maxMemory) {
+        return new UserProfileUsernameFilter(repo,
+                new UserProfileUsernameFilterProperties(true, expectedInsertions, falsePositiveRate, maxMemory),
+                meterRegistry);
+    }
+
+    @Test
+    void beforeLoading_everyLookupIsMaybe() {
+        UserProfileUsernameFilter filter = filter(1000, 0.01, DataSize.ofMegabytes(1));
+
+        assertThat(filter.mightContain("anyone")).isTrue();
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void loadedUsernames_areNeverReportedAbsent_andFalsePositivesStayNearTarget() {
+        UserProfileUsernameFilter filter = filter(10_000, 0.01, DataSize.ofMegabytes(1));
+        when(repo.streamAllUsernames()).thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "user" + i));
+
+        filter.loadExistingUsernames();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).as("user" + i).isTrue();
+        }
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("stranger" + i))
+                .count();
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.estimatedFalsePositiveRate()).isLessThan(0.02);
+    }
+
+    @Test
+    void put_afterLoading_isVisibleImmediately() {
+        UserProfileUsernameFilter filter = filter(1000, 0.01, DataSize.ofMegabytes(1));
+        when(repo.streamAllUsernames()).thenReturn(IntStream.range(0, 0).mapToObj(i -> ""));
+        filter.loadExistingUsernames();
+
+        assertThat(filter.mightContain("newcomer")).isFalse();
+        filter.put("newcomer");
+        assertThat(filter.mightContain("newcomer")).isTrue();
+    }
+
+    @Test
+    void memory_isCappedByMaxMemory() {
+        UserProfileUsernameFilter filter = filter(10_000_000, 0.001, DataSize.ofKilobytes(1));
+        filter.registerGauges();
+
+        assertThat(filter.memoryBytes()).isEqualTo(1024);
+        assertThat(meterRegistry.get("user.profiles.username.filter.memory").gauge().value()).isEqualTo(1024.0);
+    }
+
+    @Test
+    void disabled_alwaysAnswersMaybe_andUsesNoMemory() {
+        UserProfileUsernameFilter filter = new UserProfileUsernameFilter(repo,
+                new UserProfileUsernameFilterProperties(false, 1000, 0.01, DataSize.ofMegabytes(1)),
+                meterRegistry);
+
+        filter.loadExistingUsernames();
+
+        assertThat(filter.mightContain("anyone")).isTrue();
+        assertThat(filter.memoryBytes()).isZero();
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void checks_areCountedByAnswer() {
+        UserProfileUsernameFilter filter = filter(1000, 0.01, DataSize.ofMegabytes(1));
+        when(repo.streamAllUsernames()).thenReturn(IntStream.range(0, 1).mapToObj(i -> "alice"));
+        filter.loadExistingUsernames();
+
+        filter.mightContain("alice");
+        filter.mightContain("bob");
+
+        assertThat(meterRegistry.get("user.profiles.username.filter.checks").tag("result", "maybe").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.profiles.username.filter.checks").tag("result", "absent").counter().count())
+                .isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.DemoApp.unit.service;
+
+import com.example.DemoApp.repository.UserProfileRepository;
+import com.example.DemoApp.service.UserProfileTypeaheadProperties;
+import com.example.DemoApp.service.UserProfileUsernameIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileUsernameIndexTest {
+
+    @Mock
+    private UserProfileRepository repo;
+
+    private UserProfileUsernameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserProfileUsernameIndex(repo, new UserProfileTypeaheadProperties(3, 5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void loadExistingUsernames_indexesRepositoryContents() {
+        when(repo.streamAllUsernames()).thenReturn(Stream.of("alpha001", "alpine7", "bravo002"));
+
+        index.loadExistingUsernames();
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.findByPrefix("alp", null)).containsExactly("alpha001", "alpine7");
+    }
+
+    @Test
+    void findByPrefix_ignoresCase_andKeepsStoredCase() {
+        index.add("AlphaOne");
+        index.add("alphaTwo");
+        index.add("beta");
+
+        assertThat(index.findByPrefix("ALPHA", null)).containsExactly("AlphaOne", "alphaTwo");
+    }
+
+    @Test
+    void findByPrefix_prefixEndingInsideAnEdge_matchesEverythingBelow() {
+        index.add("charlie");
+        index.add("charlotte");
+
+        assertThat(index.findByPrefix("cha", null)).containsExactly("charlie", "charlotte");
+        assertThat(index.findByPrefix("charlo", null)).containsExactly("charlotte");
+        assertThat(index.findByPrefix("charx", null)).isEmpty();
+    }
+
+    @Test
+    void findByPrefix_appliesDefaultAndMaximumLimits() {
+        for (int i = 0; i < 10; i++) {
+            index.add("user" + i);
+        }
+
+        assertThat(index.findByPrefix("user", null)).containsExactly("user0", "user1", "user2");
+        assertThat(index.findByPrefix("user", 100)).hasSize(5);
+    }
+
+    @Test
+    void remove_andRename_updateMatches() {
+        index.add("delta");
+        index.add("deltaforce");
+        index.add("echo");
+
+        index.remove("delta");
+        index.rename("echo", "deltaecho");
+
+        assertThat(index.findByPrefix("delta", null)).containsExactly("deltaecho", "deltaforce");
+        assertThat(index.findByPrefix("echo", null)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void randomOperations_matchSortedSetReference() {
+        Comparator<String> typeaheadOrder = Comparator.comparing((String s) -> s.toLowerCase(Locale.ROOT))
+                .thenComparing(Comparator.naturalOrder());
+        TreeSet<String> reference = new TreeSet<>(typeaheadOrder);
+        Random random = new Random(42);
+        String alphabet = "abAB1";
+
+        for (int step = 0; step < 20_000; step++) {
+            String username = randomString(random, alphabet, 1 + random.nextInt(6));
+            if (random.nextInt(3) == 0) {
+                index.remove(username);
+                reference.remove(username);
+            } else {
+                index.add(username);
+                reference.add(username);
+            }
+
+            if (step % 25 == 0) {
+                String prefix = randomString(random, alphabet, 1 + random.nextInt(3));
+                List<String> expected = reference.stream()
+                        .filter(s -> s.toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT)))
+                        .limit(5)
+                        .toList();
+                assertThat(index.findByPrefix(prefix, 5)).as("prefix %s at step %d", prefix, step)
+                        .containsExactlyElementsOf(expected);
+            }
+        }
+        assertThat(index.size()).isEqualTo(reference.size());
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
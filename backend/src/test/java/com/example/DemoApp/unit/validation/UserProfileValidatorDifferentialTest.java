@@ -0,0 +1,85 @@
+package com.example.DemoApp.unit.validation;
+
+import com.example.DemoApp.exception.InvalidUserInputException;
+import com.example.DemoApp.validation.UserProfileValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the hand-written username and email scanners against the regular expressions they replaced,
+ * over every short string from a small alphabet plus a large seeded random sample.
+ */
+class UserProfileValidatorDifferentialTest {
+
+    private static final Pattern USERNAME_REGEX = Pattern.compile("^[A-Za-z0-9]{1,32}$");
+    private static final Pattern EMAIL_REGEX =
+            Pattern.compile("^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+(\\.[a-zA-Z0-9._-]+)*\\.[a-zA-Z]{2,}$");
+
+    // Covers every character class the regexes distinguish, plus characters both must reject
+    private static final char[] ALPHABET = {'a', 'Z', '7', '.', '_', '-', '@', '#', ' ', '\n', '\u00e9'};
+
+    @Test
+    void validateUsername_matchesRegex() {
+        List<String> inputs = inputs();
+        inputs.add("a".repeat(32));
+        inputs.add("a".repeat(33));
+        inputs.add("abc\n");
+
+        inputs.forEach(input -> assertSameVerdict(USERNAME_REGEX, UserProfileValidator::validateUsername, input));
+    }
+
+    @Test
+    void validateEmail_matchesRegex() {
+        List<String> inputs = inputs();
+        inputs.addAll(List.of(
+                "user.name@example.co.uk", "a@b.cd", "a@.cd", "a@b.c", "a@b.c1", "@b.cd", "a@b..cd",
+                "a@@b.cd", "a.b@c-d_e.f.gh", "a@b.cd.", "a@bcd", "a@b.cd\n", "a@b_c.d-e", "a@b.cd\u00e9"));
+
+        inputs.forEach(input -> assertSameVerdict(EMAIL_REGEX, UserProfileValidator::validateEmail, input));
+    }
+
+    private static List<String> inputs() {
+        List<String> inputs = new ArrayList<>();
+        exhaustive("", 5, inputs);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                input.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+
+    private static void exhaustive(String prefix, int remaining, List<String> out) {
+        out.add(prefix);
+        if (remaining == 0) {
+            return;
+        }
+        for (char c : ALPHABET) {
+            exhaustive(prefix + c, remaining - 1, out);
+        }
+    }
+
+    private static void assertSameVerdict(Pattern regex, Consumer<String> validator, String input) {
+        boolean expected = regex.matcher(input).matches();
+        boolean actual;
+        try {
+            validator.accept(input);
+            actual = true;
+        } catch (InvalidUserInputException ex) {
+            actual = false;
+        }
+        assertEquals(expected, actual, () -> "Verdict differs from regex for input: '" + input + "'");
+    }
+}
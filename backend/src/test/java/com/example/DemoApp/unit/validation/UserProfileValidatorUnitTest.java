@@ -1,12 +1,12 @@
 package com.example.DemoApp.unit.validation;
 
+import com.example.DemoApp.dto.UserProfileCreateRequest;
+import com.example.DemoApp.dto.UserProfilePatchOperation;
 import com.example.DemoApp.exception.InvalidUpdateException;
 import com.example.DemoApp.exception.InvalidUserInputException;
 import com.example.DemoApp.validation.UserProfileValidator;
 import org.junit.jupiter.api.Test;
 
-import java.util.Map;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 class UserProfileValidatorTest {
@@ -14,13 +14,13 @@ class UserProfileValidatorTest {
     // Create user validations
     @Test
     void validateCreateRequest_validPayload_shouldPass() {
-        Map<String, String> payload = Map.of(
-                "username", "validuser",
-                "emailAddress", "valid.user@example.com",
-                "streetAddress", "123 Main St",
-                "city", "Chicago",
-                "state", "IL",
-                "zipCode", "60601"
+        UserProfileCreateRequest payload = new UserProfileCreateRequest(
+                "validuser",
+                "valid.user@example.com",
+                "123 Main St",
+                "Chicago",
+                "IL",
+                "60601"
         );
 
         assertDoesNotThrow(() -> UserProfileValidator.validateCreateRequest(payload));
@@ -28,13 +28,13 @@ class UserProfileValidatorTest {
 
     @Test
     void validateCreateRequest_missingField_shouldThrow() {
-        Map<String, String> payload = Map.of(
-                "username", "validuser",
-                "emailAddress", "valid.user@example.com",
-                "streetAddress", "123 Main St",
-                "city", "Chicago",
-                "state", "IL"
-                // zipCode missing
+        UserProfileCreateRequest payload = new UserProfileCreateRequest(
+                "validuser",
+                "valid.user@example.com",
+                "123 Main St",
+                "Chicago",
+                "IL",
+                null  // zipCode missing
         );
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
@@ -44,13 +44,13 @@ class UserProfileValidatorTest {
 
     @Test
     void validateCreateRequest_blankField_shouldThrow() {
-        Map<String, String> payload = Map.of(
-                "username", "validuser",
-                "emailAddress", "valid.user@example.com",
-                "streetAddress", "123 Main St",
-                "city", "Chicago",
-                "state", "IL",
-                "zipCode", "   "
+        UserProfileCreateRequest payload = new UserProfileCreateRequest(
+                "validuser",
+                "valid.user@example.com",
+                "123 Main St",
+                "Chicago",
+                "IL",
+                "   "
         );
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
@@ -60,13 +60,13 @@ class UserProfileValidatorTest {
 
     @Test
     void validateCreateRequest_invalidEmail_shouldThrow() {
-        Map<String, String> payload = Map.of(
-                "username", "validuser",
-                "emailAddress", "invalid-email",
-                "streetAddress", "123 Main St",
-                "city", "Chicago",
-                "state", "IL",
-                "zipCode", "60601"
+        UserProfileCreateRequest payload = new UserProfileCreateRequest(
+                "validuser",
+                "invalid-email",
+                "123 Main St",
+                "Chicago",
+                "IL",
+                "60601"
         );
 
         InvalidUserInputException ex = assertThrows(InvalidUserInputException.class,
@@ -110,32 +110,47 @@ class UserProfileValidatorTest {
     // Update user validations
     @Test
     void validatePatchRequest_valid_shouldPass() {
-        Map<String, String> payload = Map.of(
-                "op", "replace",
-                "path", "city"
-        );
+        UserProfilePatchOperation payload = new UserProfilePatchOperation("replace", "city", "Chicago");
+
+        assertDoesNotThrow(() -> UserProfileValidator.validatePatchRequest(payload));
+    }
+
+    @Test
+    void validatePatchRequest_blankReplaceValue_shouldThrow() {
+        UserProfilePatchOperation payload = new UserProfilePatchOperation("replace", "zipCode", " ");
+
+        InvalidUpdateException ex = assertThrows(InvalidUpdateException.class,
+                () -> UserProfileValidator.validatePatchRequest(payload));
+        assertEquals("Field 'zipCode' cannot be blank.", ex.getMessage());
+    }
+
+    @Test
+    void validatePatchRequest_malformedUsernameOrEmail_shouldThrow() {
+        assertThrows(InvalidUserInputException.class, () -> UserProfileValidator.validatePatchRequest(
+                new UserProfilePatchOperation("replace", "username", "not valid!")));
+        assertThrows(InvalidUserInputException.class, () -> UserProfileValidator.validatePatchRequest(
+                new UserProfilePatchOperation("replace", "emailAddress", "nobody@nowhere")));
+    }
+
+    @Test
+    void validatePatchRequest_testValue_isNotValidated() {
+        UserProfilePatchOperation payload = new UserProfilePatchOperation("test", "emailAddress", "anything");
 
         assertDoesNotThrow(() -> UserProfileValidator.validatePatchRequest(payload));
     }
 
     @Test
     void validatePatchRequest_invalidOp_shouldThrow() {
-        Map<String, String> payload = Map.of(
-                "op", "delete",
-                "path", "city"
-        );
+        UserProfilePatchOperation payload = new UserProfilePatchOperation("delete", "city", null);
 
         InvalidUpdateException ex = assertThrows(InvalidUpdateException.class,
                 () -> UserProfileValidator.validatePatchRequest(payload));
-        assertEquals("Unsupported operation: 'delete'. Only 'replace' is allowed.", ex.getMessage());
+        assertEquals("Unsupported operation: 'delete'. Only 'replace' and 'test' are allowed.", ex.getMessage());
     }
 
     @Test
     void validatePatchRequest_invalidPath_shouldThrow() {
-        Map<String, String> payload = Map.of(
-                "op", "replace",
-                "path", "unknownField"
-        );
+        UserProfilePatchOperation payload = new UserProfilePatchOperation("replace", "unknownField", null);
 
         InvalidUpdateException ex = assertThrows(InvalidUpdateException.class,
                 () -> UserProfileValidator.validatePatchRequest(payload));